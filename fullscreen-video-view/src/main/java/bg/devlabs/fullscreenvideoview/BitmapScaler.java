@@ -19,44 +19,169 @@ package bg.devlabs.fullscreenvideoview;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
 
 /**
- * Used to scale bitmap images.
+ * Used to decode bitmap images scaled to the size of the view showing them.
+ * <p>
+ * The methods block on the disk and have to be called on a background thread.
  */
 class BitmapScaler {
+    // Only accessed from the thumbnail decoder thread
+    private static final SparseArray<ImageBounds> resourceBounds = new SparseArray<>();
 
-    static Bitmap scaleImage(Resources resources, int thumbnailResId) {
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inJustDecodeBounds = true;
-        BitmapFactory.decodeResource(resources, thumbnailResId, options);
+    /**
+     * Decodes a drawable resource to fit in the target size without upscaling it. Has to be
+     * called on the thumbnail decoder thread, which caches the size of the resources.
+     *
+     * @param resources    the resources
+     * @param resId        the resource id of the image
+     * @param targetWidth  the width of the view in pixels
+     * @param targetHeight the height of the view in pixels
+     * @return the bitmap or null if the resource could not be decoded
+     */
+    @Nullable
+    static Bitmap decodeResource(Resources resources,
+                                 int resId,
+                                 int targetWidth,
+                                 int targetHeight) {
+        ImageBounds bounds = resourceBounds.get(resId);
+        if (bounds == null) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            // Read the size of the image itself, not the one scaled for the screen density
+            options.inScaled = false;
+            BitmapFactory.decodeResource(resources, resId, options);
+            bounds = new ImageBounds(options);
+            resourceBounds.put(resId, bounds);
+        }
 
-        options.inSampleSize = calculateInSampleSize(options);
-        options.inJustDecodeBounds = false;
+        if (bounds.width <= 0 || bounds.height <= 0) {
+            return null;
+        }
 
-        return BitmapFactory.decodeResource(resources, thumbnailResId, options);
+        BitmapFactory.Options options = createOptions(bounds, targetWidth, targetHeight);
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        } catch (IllegalArgumentException exception) {
+            // The reused bitmap does not fit the decoded image
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        }
+
+        if (bitmap != null) {
+            // Neither the target density nor the resource density is the one of the screen,
+            // so draw the bitmap with its pixel size
+            bitmap.setDensity(Bitmap.DENSITY_NONE);
+        }
+        return bitmap;
     }
 
-    private static int calculateInSampleSize(BitmapFactory.Options options) {
-        // Raw height and width of image
-        final int height = options.outHeight;
-        final int width = options.outWidth;
-        int inSampleSize = 1;
-        int requiredHeight = 500;
-        int requiredWidth = 500;
+    /**
+     * Decodes an image file to fit in the target size without upscaling it.
+     *
+     * @param file         the image file
+     * @param targetWidth  the width of the view in pixels
+     * @param targetHeight the height of the view in pixels
+     * @return the bitmap or null if the file could not be decoded
+     */
+    @Nullable
+    static Bitmap decodeFile(File file, int targetWidth, int targetHeight) {
+        BitmapFactory.Options boundsOptions = new BitmapFactory.Options();
+        boundsOptions.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), boundsOptions);
+        ImageBounds bounds = new ImageBounds(boundsOptions);
+        if (bounds.width <= 0 || bounds.height <= 0) {
+            return null;
+        }
 
-        if (height > requiredHeight || width > requiredWidth) {
+        BitmapFactory.Options options = createOptions(bounds, targetWidth, targetHeight);
+        boolean isScaledToTarget = options.inTargetDensity != 0;
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        } catch (IllegalArgumentException exception) {
+            // The reused bitmap does not fit the decoded image
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        }
 
-            final int halfHeight = height / 2;
-            final int halfWidth = width / 2;
+        if (bitmap != null && isScaledToTarget) {
+            bitmap.setDensity(Bitmap.DENSITY_NONE);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Creates the decoding options for an image. The image is sampled down by a power of 2 and
+     * then scaled to the exact size which fits in the target size, so that the bitmap is not
+     * larger than the view.
+     */
+    private static BitmapFactory.Options createOptions(ImageBounds bounds,
+                                               int targetWidth,
+                                               int targetHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        float scale = Math.min(
+                (float) targetWidth / bounds.width,
+                (float) targetHeight / bounds.height
+        );
 
-            // Calculate the largest inSampleSize value that is a power of 2 and keeps both
-            // height and width larger than the requested height and width.
-            while ((halfHeight / inSampleSize) >= requiredHeight
-                    && (halfWidth / inSampleSize) >= requiredWidth) {
-                inSampleSize *= 2;
+        int width = bounds.width;
+        int height = bounds.height;
+        if (scale < 1) {
+            int scaledWidth = Math.max(1, Math.round(bounds.width * scale));
+            int sampleSize = 1;
+            while (bounds.width / (sampleSize * 2) >= scaledWidth) {
+                sampleSize *= 2;
             }
+
+            options.inSampleSize = sampleSize;
+            options.inScaled = true;
+            options.inDensity = bounds.width / sampleSize;
+            options.inTargetDensity = scaledWidth;
+            width = scaledWidth;
+            height = Math.max(1, Math.round(bounds.height * scale));
+        } else {
+            // Decoding a resource would otherwise scale it from its density to the one of
+            // the screen, which upscales it past the target size
+            options.inScaled = false;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            // Keep the pixels only in the graphics memory
+            options.inPreferredConfig = Bitmap.Config.HARDWARE;
+        } else {
+            options.inPreferredConfig = bounds.isOpaque
+                    ? Bitmap.Config.RGB_565
+                    : Bitmap.Config.ARGB_8888;
+            // Only mutable bitmaps can be reused for decoding
+            options.inMutable = true;
+            int bytesPerPixel = bounds.isOpaque ? 2 : 4;
+            options.inBitmap = ThumbnailCache.getInstance()
+                    .takeReusableBitmap(width * height * bytesPerPixel);
         }
 
-        return inSampleSize;
+        return options;
+    }
+
+    /**
+     * The size of an image and whether it has transparent pixels.
+     */
+    static class ImageBounds {
+        final int width;
+        final int height;
+        final boolean isOpaque;
+
+        ImageBounds(BitmapFactory.Options options) {
+            this.width = options.outWidth;
+            this.height = options.outHeight;
+            this.isOpaque = "image/jpeg".equals(options.outMimeType);
+        }
     }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import bg.devlabs.fullscreenvideoview.listener.OnBufferHealthListener;
+
+/**
+ * Keeps the buffer state of the media player and reports it with OnBufferHealthListener.
+ *
+ * @see OnBufferHealthListener
+ */
+class BufferHealthTracker {
+    @Nullable
+    private OnBufferHealthListener onBufferHealthListener;
+    private long bufferedAheadMs = -1;
+    private boolean isBuffering;
+    private long bufferingStartTime;
+
+    void setOnBufferHealthListener(@Nullable OnBufferHealthListener onBufferHealthListener) {
+        this.onBufferHealthListener = onBufferHealthListener;
+    }
+
+    /**
+     * Updates the buffered video ahead of the playback position.
+     *
+     * @param bufferPercentage the buffered part of the video in percents
+     * @param positionMs       the playback position in milliseconds
+     * @param durationMs       the video duration in milliseconds
+     */
+    void onBufferingUpdate(int bufferPercentage, int positionMs, int durationMs) {
+        if (durationMs <= 0) {
+            return;
+        }
+
+        long bufferedMs = (long) durationMs * bufferPercentage / 100;
+        long aheadMs = Math.max(0, bufferedMs - positionMs);
+        if (aheadMs == bufferedAheadMs) {
+            return;
+        }
+
+        bufferedAheadMs = aheadMs;
+        if (onBufferHealthListener != null) {
+            onBufferHealthListener.onBufferHealthChanged(aheadMs);
+        }
+    }
+
+    void onBufferingStarted() {
+        if (isBuffering) {
+            return;
+        }
+
+        isBuffering = true;
+        bufferingStartTime = SystemClock.elapsedRealtime();
+        if (onBufferHealthListener != null) {
+            onBufferHealthListener.onBufferingStarted();
+        }
+    }
+
+    /**
+     * Ends the stall because of buffering.
+     *
+     * @return the duration of the stall in milliseconds or -1 if the playback was not stalled
+     */
+    long onBufferingEnded() {
+        if (!isBuffering) {
+            return -1;
+        }
+
+        isBuffering = false;
+        long stallDurationMs = SystemClock.elapsedRealtime() - bufferingStartTime;
+        if (onBufferHealthListener != null) {
+            onBufferHealthListener.onBufferingEnded(stallDurationMs);
+        }
+        return stallDurationMs;
+    }
+
+    boolean isBuffering() {
+        return isBuffering;
+    }
+
+    /**
+     * Gets the buffered video ahead of the playback position.
+     *
+     * @return the buffered video in milliseconds or -1 if it's not known yet
+     */
+    long getBufferedAheadMs() {
+        return bufferedAheadMs;
+    }
+
+    /**
+     * Clears the state when a new video source is set.
+     */
+    void reset() {
+        bufferedAheadMs = -1;
+        isBuffering = false;
+    }
+
+    void onDestroy() {
+        onBufferHealthListener = null;
+    }
+}
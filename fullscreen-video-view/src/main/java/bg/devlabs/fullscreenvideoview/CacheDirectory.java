@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded directory of cache files. Files are evicted in least-recently-used order
+ * when the total size of the directory exceeds the maximum size.
+ */
+class CacheDirectory {
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long maxSizeBytes;
+    private long sizeBytes;
+    private boolean isRead;
+
+    CacheDirectory(File directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Gets a committed cache file and marks it as recently used.
+     *
+     * @param name the name of the cache file
+     * @return the cache file or null if it is not cached
+     */
+    @Nullable
+    synchronized File get(String name) {
+        readEntries();
+        if (!entries.containsKey(name)) {
+            return null;
+        }
+
+        File file = new File(directory, name);
+        if (!file.exists()) {
+            remove(name);
+            return null;
+        }
+
+        // Keep the order of use across processes
+        //noinspection ResultOfMethodCallIgnored
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Creates a temporary file which becomes a cache file when passed to
+     * {@link #commit(File, String)}.
+     *
+     * @return the temporary file
+     * @throws IOException if the file could not be created
+     */
+    File newTempFile() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create cache directory " + directory);
+        }
+
+        return File.createTempFile("entry", TEMP_FILE_SUFFIX, directory);
+    }
+
+    /**
+     * Renames a temporary file to a cache file and evicts the least recently used files
+     * if the maximum size is exceeded.
+     *
+     * @param tempFile the temporary file created with {@link #newTempFile()}
+     * @param name     the name of the cache file
+     */
+    synchronized void commit(File tempFile, String name) {
+        readEntries();
+        File file = new File(directory, name);
+        remove(name);
+        if (!tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        }
+
+        long length = file.length();
+        entries.put(name, length);
+        sizeBytes += length;
+        trimToSize();
+    }
+
+    synchronized void setMaxSize(long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+        if (isRead) {
+            trimToSize();
+        }
+    }
+
+    private void remove(String name) {
+        Long length = entries.remove(name);
+        if (length != null) {
+            sizeBytes -= length;
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            //noinspection ResultOfMethodCallIgnored
+            new File(directory, eldest.getKey()).delete();
+            sizeBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Restores the entries left from a previous process in the order of their last modification.
+     * The directory is read lazily, so that it is never listed on the thread creating the cache.
+     */
+    private void readEntries() {
+        if (isRead) {
+            return;
+        }
+
+        isRead = true;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                return Long.compare(first.lastModified(), second.lastModified());
+            }
+        });
+
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                // Left over from an interrupted write
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+                continue;
+            }
+
+            long length = file.length();
+            entries.put(file.getName(), length);
+            sizeBytes += length;
+        }
+
+        trimToSize();
+    }
+
+    /**
+     * Creates a file-system safe key from a source, such as an URL.
+     *
+     * @param source the source
+     * @return the MD5 hex digest of the source
+     */
+    static String keyFor(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest(source.getBytes(Charset.forName("UTF-8")));
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException exception) {
+            return String.valueOf(source.hashCode());
+        }
+    }
+}
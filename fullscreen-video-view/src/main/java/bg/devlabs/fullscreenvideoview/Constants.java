@@ -29,6 +29,7 @@ class Constants {
     public static final int REWIND_DURATION = 5000;
     public static final long ONE_MILLISECOND = 1000L;
     public static final int DEFAULT_CONTROLLER_TIMEOUT = 3000;
+    public static final int RESUME_POSITION_SAVE_INTERVAL = 5000;
     // View tags
     public static final String VIEW_TAG_CLICKED = "view_tag:clicked";
     // Media player error codes
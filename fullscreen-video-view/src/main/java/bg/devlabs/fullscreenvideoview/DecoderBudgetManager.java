@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * A process-wide budget of the video decoders held by the media players of all
+ * FullscreenVideoView instances.
+ * <p>
+ * Devices limit the number of hardware video decoder instances, and the media players over
+ * the limit fail or fall back to software decoding. A media player holds a decoder from its
+ * preparation until it's reset or released. When a newly prepared media player exceeds
+ * the budget, the least recently used paused media player is evicted - its view saves
+ * the position and resets it, and prepares it again from the same position when it's played.
+ * The budget must be used on the main thread.
+ */
+@SuppressWarnings("unused")
+public class DecoderBudgetManager {
+    public static final int DEFAULT_MAX_DECODERS = 4;
+
+    private static final String TAG = "DecoderBudgetManager";
+
+    private static DecoderBudgetManager instance;
+
+    // The prepared media players, the least recently used first
+    private final ArrayList<FullscreenVideoMediaPlayer> players = new ArrayList<>();
+    private int maxDecoders = DEFAULT_MAX_DECODERS;
+    private int evictionCount;
+
+    private DecoderBudgetManager() {
+    }
+
+    public static DecoderBudgetManager getInstance() {
+        if (instance == null) {
+            instance = new DecoderBudgetManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Changes the maximum number of media players which hold a decoder at the same time.
+     *
+     * @param maxDecoders the maximum number of decoders, at least 1
+     */
+    public void setMaxDecoders(int maxDecoders) {
+        this.maxDecoders = Math.max(1, maxDecoders);
+        enforceBudget(null);
+    }
+
+    public int getMaxDecoders() {
+        return maxDecoders;
+    }
+
+    /**
+     * Gets the number of media players which currently hold a decoder.
+     *
+     * @return the number of used decoders
+     */
+    public int getUsedDecoderCount() {
+        return players.size();
+    }
+
+    /**
+     * Gets the number of media players which were evicted, because the budget was exceeded.
+     *
+     * @return the number of evictions
+     */
+    public int getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Registers a media player which has been prepared and evicts the least recently used
+     * paused media player if the budget is exceeded.
+     *
+     * @param player the prepared media player
+     */
+    void onPrepared(FullscreenVideoMediaPlayer player) {
+        players.remove(player);
+        players.add(player);
+        enforceBudget(player);
+    }
+
+    /**
+     * Marks a media player as the most recently used one, for example when it's started.
+     *
+     * @param player the media player
+     */
+    void onUsed(FullscreenVideoMediaPlayer player) {
+        if (players.remove(player)) {
+            players.add(player);
+        }
+    }
+
+    /**
+     * Unregisters a media player which has been reset or released.
+     *
+     * @param player the media player
+     */
+    void onReleased(FullscreenVideoMediaPlayer player) {
+        players.remove(player);
+    }
+
+    private void enforceBudget(@Nullable FullscreenVideoMediaPlayer exemptPlayer) {
+        while (players.size() > maxDecoders) {
+            FullscreenVideoMediaPlayer evictedPlayer = null;
+            // A copy, because an evicted media player unregisters itself when it's reset
+            ArrayList<FullscreenVideoMediaPlayer> candidates = new ArrayList<>(players);
+            for (FullscreenVideoMediaPlayer player : candidates) {
+                if (player != exemptPlayer && !player.getStateMirror().isPlaying()
+                        && player.evict()) {
+                    evictedPlayer = player;
+                    break;
+                }
+            }
+
+            if (evictedPlayer == null) {
+                Log.w(TAG, "The decoder budget of " + maxDecoders + " is exceeded by "
+                        + players.size() + " media players which can't be evicted");
+                return;
+            }
+
+            players.remove(evictedPlayer);
+            evictionCount++;
+        }
+    }
+}
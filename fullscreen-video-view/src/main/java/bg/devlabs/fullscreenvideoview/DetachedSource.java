@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import androidx.annotation.Nullable;
+
+/**
+ * The video of a view whose media player and child views were torn down when it was detached.
+ * <p>
+ * A RecyclerView binds a recycled view to another item while the view is detached, so
+ * the videos requested in the meantime replace the one the view was detached with, and
+ * the view is set up for the latest requested video when it's attached again.
+ */
+class DetachedSource {
+    private boolean isTornDown;
+    @Nullable
+    private String videoPath;
+
+    /**
+     * Called when the view is detached and torn down.
+     *
+     * @param videoPath the video of the view or null if it has none
+     */
+    void onTornDown(@Nullable String videoPath) {
+        isTornDown = true;
+        this.videoPath = videoPath;
+    }
+
+    boolean isTornDown() {
+        return isTornDown;
+    }
+
+    /**
+     * Replaces the video which is set up when the view is attached again.
+     *
+     * @param videoPath the requested video
+     * @return true if the video differs from the previous one
+     */
+    boolean replace(String videoPath) {
+        boolean isChanged = !videoPath.equals(this.videoPath);
+        this.videoPath = videoPath;
+        return isChanged;
+    }
+
+    /**
+     * Called when the view is attached again. Clears the source.
+     *
+     * @return the video to set up or null if there's none or the view was not torn down
+     */
+    @Nullable
+    String take() {
+        String takenVideoPath = videoPath;
+        isTornDown = false;
+        videoPath = null;
+        return takenVideoPath;
+    }
+}
@@ -17,12 +17,19 @@
 package bg.devlabs.fullscreenvideoview;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.Nullable;
 
+import java.util.List;
+import java.util.Random;
+
 import bg.devlabs.fullscreenvideoview.listener.FullscreenVideoViewException;
 import bg.devlabs.fullscreenvideoview.listener.OnErrorListener;
 import bg.devlabs.fullscreenvideoview.model.MediaPlayerError;
+import bg.devlabs.fullscreenvideoview.model.MediaPlayerErrorType;
+import bg.devlabs.fullscreenvideoview.model.RetryPolicy;
 
 import static android.media.MediaPlayer.MEDIA_ERROR_IO;
 import static android.media.MediaPlayer.MEDIA_ERROR_MALFORMED;
@@ -35,32 +42,197 @@ import static bg.devlabs.fullscreenvideoview.Constants.MEDIA_ERROR_GENERAL;
 
 /**
  * Handles error events which occur in FullscreenVideoView. Uses OnErrorListener to return errors
- * to the caller.
+ * to the caller. Transient errors are recovered from first, if a {@link RetryPolicy} is set.
  *
  * @see OnErrorListener
  */
 class ErrorHandler {
+    /**
+     * Prepares the video again from the last known position.
+     */
+    interface RecoveryListener {
+        void onRecoveryAttempt(@Nullable String fallbackUrl);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
     @Nullable
     private OnErrorListener onErrorListener;
+    @Nullable
+    private RecoveryListener recoveryListener;
+    @Nullable
+    private RetryPolicy retryPolicy;
+    /**
+     * The video the fallback URLs of the retry policy belong to.
+     */
+    @Nullable
+    private String primaryVideoPath;
+    private boolean isFallbackAllowed;
+    /**
+     * The index of the fallback URL in use or -1 for the video itself.
+     */
+    private int fallbackIndex = -1;
+    private int attempt;
+    @Nullable
+    private String recoveryUrl;
+
+    private final Runnable recoveryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (recoveryListener != null) {
+                recoveryListener.onRecoveryAttempt(recoveryUrl);
+            }
+        }
+    };
 
     void setOnErrorListener(@Nullable OnErrorListener onErrorListener) {
         this.onErrorListener = onErrorListener;
     }
 
+    void setRecoveryListener(@Nullable RecoveryListener recoveryListener) {
+        this.recoveryListener = recoveryListener;
+    }
+
+    void setRetryPolicy(@Nullable RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        primaryVideoPath = null;
+    }
+
+    /**
+     * Starts the recovery attempts of a new video from the beginning. The fallback URLs apply
+     * only to the first video set up after the retry policy.
+     *
+     * @param videoPath the path of the new video
+     */
+    void onSourceChanged(String videoPath) {
+        if (primaryVideoPath == null) {
+            primaryVideoPath = videoPath;
+        }
+        isFallbackAllowed = videoPath.equals(primaryVideoPath);
+        fallbackIndex = -1;
+        attempt = 0;
+        handler.removeCallbacks(recoveryRunnable);
+    }
+
+    /**
+     * Resets the attempt count once the video is prepared again. The URL which worked is kept.
+     */
+    void onRecovered() {
+        attempt = 0;
+    }
+
+    /**
+     * Cancels the scheduled recovery attempt. The listener is kept, because the view may be set
+     * up again for another video or when it's attached again.
+     */
     void onDestroy() {
-        onErrorListener = null;
+        handler.removeCallbacks(recoveryRunnable);
     }
 
-    void handle(Context context, MediaPlayerError error) {
+    /**
+     * Handles an error by scheduling a recovery attempt or by reporting it to the listener.
+     *
+     * @param context the context used to resolve the error messages
+     * @param error   the error
+     * @return true if a recovery attempt is scheduled, false if the error is reported
+     */
+    boolean handle(Context context, MediaPlayerError error) {
+        if (scheduleRecovery(error)) {
+            return true;
+        }
+
         switch(error.getType()) {
             case DATA_SOURCE_READ: {
                 onError(error.getMessage());
+                break;
             }
 
             case ASYNC_OPERATION: {
-                handleAsyncOperationError(context, error.getCode());
+                // The specific error is usually passed as extra code of an unknown error
+                int errorCode = error.getCode() == MEDIA_ERROR_UNKNOWN && error.getExtra() != 0
+                        ? error.getExtra()
+                        : error.getCode();
+                handleAsyncOperationError(context, errorCode);
+                break;
             }
+
+            case PREPARE_TIMEOUT: {
+                onError(
+                        error.getCode(),
+                        context.getString(R.string.media_error_prepare_timeout)
+                );
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the URL of the scheduled recovery attempt.
+     *
+     * @return the fallback URL or null if the video itself is prepared again
+     */
+    @Nullable
+    String getRecoveryUrl() {
+        return recoveryUrl;
+    }
+
+    private boolean scheduleRecovery(MediaPlayerError error) {
+        if (retryPolicy == null || recoveryListener == null || !isTransient(error)) {
+            return false;
         }
+
+        List<String> fallbackUrls = retryPolicy.getFallbackUrls();
+        boolean canFailOver = isFallbackAllowed && fallbackIndex + 1 < fallbackUrls.size();
+        boolean isFailoverRequested = canFailOver && retryPolicy.isFailoverOnPrepareTimeout()
+                && error.getType() == MediaPlayerErrorType.PREPARE_TIMEOUT;
+        long delayMs;
+        if (attempt < retryPolicy.getMaxAttempts() && !isFailoverRequested) {
+            attempt++;
+            delayMs = getBackoff(attempt);
+        } else if (canFailOver) {
+            // Fail over to the next URL right away, it's not the one having problems
+            fallbackIndex++;
+            attempt = 0;
+            delayMs = 0;
+        } else {
+            return false;
+        }
+
+        recoveryUrl = fallbackIndex == -1 ? null : fallbackUrls.get(fallbackIndex);
+        handler.removeCallbacks(recoveryRunnable);
+        handler.postDelayed(recoveryRunnable, delayMs);
+        return true;
+    }
+
+    /**
+     * Calculates an exponential backoff, from which a random part is taken away, so that
+     * the clients which failed at the same time do not retry at the same time.
+     */
+    long getBackoff(int attempt) {
+        RetryPolicy policy = retryPolicy;
+        if (policy == null) {
+            return 0;
+        }
+
+        long backoffMs = policy.getInitialBackoffMs() << Math.min(attempt - 1, 20);
+        backoffMs = Math.min(backoffMs, policy.getMaxBackoffMs());
+        return backoffMs - (long) (backoffMs * policy.getJitter() * random.nextFloat());
+    }
+
+    private static boolean isTransient(MediaPlayerError error) {
+        if (error.getType() == MediaPlayerErrorType.PREPARE_TIMEOUT) {
+            return true;
+        }
+        if (error.getType() != MediaPlayerErrorType.ASYNC_OPERATION) {
+            return false;
+        }
+
+        int code = error.getCode();
+        int extra = error.getExtra();
+        return code == MEDIA_ERROR_SERVER_DIED
+                || code == MEDIA_ERROR_IO || extra == MEDIA_ERROR_IO
+                || code == MEDIA_ERROR_TIMED_OUT || extra == MEDIA_ERROR_TIMED_OUT;
     }
 
     private void onError(String message) {
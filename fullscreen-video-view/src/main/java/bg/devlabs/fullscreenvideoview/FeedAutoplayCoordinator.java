@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Coordinates the playback of the FullscreenVideoView items of a RecyclerView feed.
+ * <p>
+ * The coordinator tracks the visible fraction of each attached video on the scroll callbacks of
+ * the RecyclerView. At most one video plays - the most visible one, once its visible fraction
+ * reaches the play threshold. At most the given number of the most visible videos are prepared,
+ * the others are paused and their media players are reset as they scroll out. No new videos are
+ * prepared or started while the feed is flung, so a fast fling does not prepare every video it
+ * passes. The tracking does not allocate on scroll. The coordinator must be used on the main
+ * thread.
+ * <p>
+ * The videos passed through {@link #manage(FullscreenVideoView)} before they are loaded are only
+ * prepared when the coordinator allows it.
+ */
+@SuppressWarnings("unused")
+public class FeedAutoplayCoordinator {
+    public static final int DEFAULT_MAX_PREPARED = 2;
+    public static final float DEFAULT_PLAY_THRESHOLD = 0.75f;
+
+    private static final int NO_RANK = -1;
+
+    private final ArrayList<Item> items = new ArrayList<>();
+    private final ArrayDeque<Item> recycledItems = new ArrayDeque<>();
+    private final Rect videoRect = new Rect();
+    private int maxPrepared = DEFAULT_MAX_PREPARED;
+    private float playThreshold = DEFAULT_PLAY_THRESHOLD;
+    @Nullable
+    private RecyclerView recyclerView;
+    private int scrollState = RecyclerView.SCROLL_STATE_IDLE;
+
+    private final RecyclerView.OnScrollListener onScrollListener =
+            new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(@NonNull RecyclerView recyclerView,
+                                                 int newState) {
+                    scrollState = newState;
+                    update();
+                }
+
+                @Override
+                public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                    // Also called after each layout, when the attached items change
+                    update();
+                }
+            };
+
+    private final RecyclerView.OnChildAttachStateChangeListener onChildAttachStateChangeListener =
+            new RecyclerView.OnChildAttachStateChangeListener() {
+                @Override
+                public void onChildViewAttachedToWindow(@NonNull View view) {
+                    FullscreenVideoView videoView = findVideoView(view);
+                    if (videoView != null) {
+                        Item item = recycledItems.isEmpty() ? new Item() : recycledItems.poll();
+                        item.child = view;
+                        item.videoView = videoView;
+                        items.add(item);
+                    }
+                }
+
+                @Override
+                public void onChildViewDetachedFromWindow(@NonNull View view) {
+                    for (int i = 0; i < items.size(); i++) {
+                        Item item = items.get(i);
+                        if (item.child == view) {
+                            item.videoView.setPlayRequested(false);
+                            // A rebound item waits until the coordinator allows it again
+                            item.videoView.setPreparationHeld(true);
+                            items.remove(i);
+                            item.clear();
+                            recycledItems.add(item);
+                            return;
+                        }
+                    }
+                }
+            };
+
+    /**
+     * Changes the maximum number of the prepared videos, including the playing one.
+     *
+     * @param maxPrepared the maximum number of the prepared videos, at least 1
+     * @return the coordinator instance
+     */
+    public FeedAutoplayCoordinator setMaxPrepared(int maxPrepared) {
+        this.maxPrepared = Math.max(1, maxPrepared);
+        update();
+        return this;
+    }
+
+    public int getMaxPrepared() {
+        return maxPrepared;
+    }
+
+    /**
+     * Changes the visible fraction of a video at which it starts playing.
+     *
+     * @param playThreshold the visible fraction of the video area, between 0 and 1
+     * @return the coordinator instance
+     */
+    public FeedAutoplayCoordinator setPlayThreshold(float playThreshold) {
+        this.playThreshold = Math.max(0f, Math.min(playThreshold, 1f));
+        update();
+        return this;
+    }
+
+    public float getPlayThreshold() {
+        return playThreshold;
+    }
+
+    /**
+     * Starts coordinating the videos of a RecyclerView. Detaches from the previous one, if any.
+     *
+     * @param recyclerView the feed
+     */
+    public void attach(RecyclerView recyclerView) {
+        detach();
+        this.recyclerView = recyclerView;
+        scrollState = recyclerView.getScrollState();
+        recyclerView.addOnScrollListener(onScrollListener);
+        recyclerView.addOnChildAttachStateChangeListener(onChildAttachStateChangeListener);
+        for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            onChildAttachStateChangeListener.onChildViewAttachedToWindow(
+                    recyclerView.getChildAt(i));
+        }
+        update();
+    }
+
+    /**
+     * Stops coordinating the videos and pauses them. The attached videos are allowed to prepare
+     * on their own again. The views which are not attached, for example the ones cached by
+     * the RecyclerView, stay held until they're attached and managed again.
+     */
+    public void detach() {
+        if (recyclerView == null) {
+            return;
+        }
+
+        recyclerView.removeOnScrollListener(onScrollListener);
+        recyclerView.removeOnChildAttachStateChangeListener(onChildAttachStateChangeListener);
+        recyclerView = null;
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            item.videoView.setPlayRequested(false);
+            item.videoView.setPreparationHeld(false);
+            item.clear();
+            recycledItems.add(item);
+        }
+        items.clear();
+    }
+
+    /**
+     * Makes the coordinator control the preparation of a video. Has to be called when the item
+     * is bound, before the video is loaded.
+     *
+     * @param videoView the video of the item
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView manage(FullscreenVideoView videoView) {
+        videoView.setPreparationHeld(true);
+        return videoView;
+    }
+
+    /**
+     * Ranks the attached videos by their visible fraction, prepares the highest ranked ones,
+     * plays the most visible one and pauses or releases the others.
+     */
+    private void update() {
+        if (recyclerView == null) {
+            return;
+        }
+
+        int count = items.size();
+        for (int i = 0; i < count; i++) {
+            Item item = items.get(i);
+            item.visibleFraction = getVisibleFraction(recyclerView, item.videoView);
+            item.rank = NO_RANK;
+        }
+
+        // Select the most visible videos, the number of prepared videos is small
+        Item mostVisible = null;
+        for (int rank = 0; rank < maxPrepared; rank++) {
+            Item best = null;
+            for (int i = 0; i < count; i++) {
+                Item item = items.get(i);
+                if (item.rank == NO_RANK && item.visibleFraction > 0
+                        && (best == null || item.visibleFraction > best.visibleFraction)) {
+                    best = item;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            best.rank = rank;
+            if (rank == 0) {
+                mostVisible = best;
+            }
+        }
+
+        boolean isFlung = scrollState == RecyclerView.SCROLL_STATE_SETTLING;
+        Item playing = mostVisible != null && mostVisible.visibleFraction >= playThreshold
+                ? mostVisible
+                : null;
+        for (int i = 0; i < count; i++) {
+            Item item = items.get(i);
+            if (item != playing) {
+                setPlayRequested(item, false);
+            }
+
+            if (item.rank == NO_RANK) {
+                if (item.isPreparationAllowed) {
+                    item.isPreparationAllowed = false;
+                    item.videoView.releaseUntilAllowed();
+                }
+            } else if (!item.isPreparationAllowed && !isFlung) {
+                item.isPreparationAllowed = true;
+                item.videoView.setPreparationHeld(false);
+            }
+        }
+
+        if (playing != null && !isFlung) {
+            setPlayRequested(playing, true);
+        }
+    }
+
+    private void setPlayRequested(Item item, boolean isRequested) {
+        if (item.isPlayRequested != isRequested) {
+            item.isPlayRequested = isRequested;
+            item.videoView.setPlayRequested(isRequested);
+        }
+    }
+
+    private float getVisibleFraction(RecyclerView recyclerView, View videoView) {
+        long area = (long) videoView.getWidth() * videoView.getHeight();
+        if (area == 0) {
+            return 0;
+        }
+
+        videoRect.set(0, 0, videoView.getWidth(), videoView.getHeight());
+        recyclerView.offsetDescendantRectToMyCoords(videoView, videoRect);
+        if (!videoRect.intersect(0, 0, recyclerView.getWidth(), recyclerView.getHeight())) {
+            return 0;
+        }
+        return (float) videoRect.width() * videoRect.height() / area;
+    }
+
+    @Nullable
+    private static FullscreenVideoView findVideoView(View view) {
+        if (view instanceof FullscreenVideoView) {
+            return (FullscreenVideoView) view;
+        }
+
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                FullscreenVideoView videoView = findVideoView(viewGroup.getChildAt(i));
+                if (videoView != null) {
+                    return videoView;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An attached item of the feed. The items are reused, so that scrolling does not allocate.
+     */
+    private static class Item {
+        View child;
+        FullscreenVideoView videoView;
+        float visibleFraction;
+        int rank = NO_RANK;
+        boolean isPreparationAllowed;
+        boolean isPlayRequested;
+
+        void clear() {
+            child = null;
+            videoView = null;
+            visibleFraction = 0;
+            rank = NO_RANK;
+            isPreparationAllowed = false;
+            isPlayRequested = false;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.graphics.Bitmap;
+import android.media.MediaMetadataRetriever;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extracts the preview frames of a video with MediaMetadataRetriever.
+ * <p>
+ * The frames are extracted one at a time on a background priority thread, from the sync frame
+ * closest to each bucket of {@link #BUCKET_MS}, so they don't need the decoder to run through
+ * the whole group of pictures. The latest request always goes before the older ones, which are
+ * dropped, and before the prefetched frames. The frames are scaled down to the size of
+ * the preview and kept in an LRU cache.
+ */
+class FramePreviewLoader implements SeekPreviewProvider {
+    private static final String TAG = "FramePreviewLoader";
+    private static final String THREAD_NAME = "FullscreenVideoSeekPreview";
+    private static final int BUCKET_MS = 2000;
+    private static final int PREFETCH_BUCKETS = 2;
+    private static final int MAX_CACHED_FRAMES = 32;
+    private static final int NO_BUCKET = -1;
+    private static final long MICROSECONDS_IN_MILLISECOND = 1000L;
+
+    private final String dataSource;
+    private final int frameWidth;
+    private final LruCache<Integer, Bitmap> frames = new LruCache<>(MAX_CACHED_FRAMES);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final HandlerThread thread;
+    private final Handler workerHandler;
+    private final AtomicInteger requestedBucket = new AtomicInteger(NO_BUCKET);
+    // Accessed on both threads, guarded by itself
+    private final ArrayDeque<Integer> prefetchBuckets = new ArrayDeque<>();
+    private final Runnable processRunnable = new Runnable() {
+        @Override
+        public void run() {
+            process();
+        }
+    };
+
+    // Only accessed on the main thread
+    @Nullable
+    private Callback callback;
+    private int wantedBucket = NO_BUCKET;
+
+    // Only accessed on the worker thread
+    @Nullable
+    private MediaMetadataRetriever retriever;
+    private boolean isFailed;
+    private int frameHeight;
+
+    /**
+     * @param dataSource the URL or the file path of the video
+     * @param frameWidth the width of the preview in pixels
+     */
+    FramePreviewLoader(String dataSource, int frameWidth) {
+        this.dataSource = dataSource;
+        this.frameWidth = frameWidth;
+        thread = new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        workerHandler = new Handler(thread.getLooper());
+    }
+
+    @Override
+    public void requestPreview(int positionMs, Callback callback) {
+        int bucket = Math.max(0, positionMs) / BUCKET_MS;
+        this.callback = callback;
+        wantedBucket = bucket;
+        Bitmap frame = frames.get(bucket);
+        if (frame != null) {
+            requestedBucket.set(NO_BUCKET);
+            callback.onPreviewLoaded(positionMs, frame);
+            return;
+        }
+
+        requestedBucket.set(bucket);
+        workerHandler.removeCallbacks(processRunnable);
+        workerHandler.post(processRunnable);
+    }
+
+    @Override
+    public void prefetch(int positionMs) {
+        int bucket = Math.max(0, positionMs) / BUCKET_MS;
+        synchronized (prefetchBuckets) {
+            prefetchBuckets.clear();
+            prefetchBuckets.add(bucket);
+            for (int i = 1; i <= PREFETCH_BUCKETS; i++) {
+                prefetchBuckets.add(bucket + i);
+                if (bucket - i >= 0) {
+                    prefetchBuckets.add(bucket - i);
+                }
+            }
+        }
+        workerHandler.removeCallbacks(processRunnable);
+        workerHandler.post(processRunnable);
+    }
+
+    @Override
+    public void cancel() {
+        requestedBucket.set(NO_BUCKET);
+        wantedBucket = NO_BUCKET;
+        callback = null;
+    }
+
+    @Override
+    public void release() {
+        cancel();
+        synchronized (prefetchBuckets) {
+            prefetchBuckets.clear();
+        }
+        workerHandler.removeCallbacksAndMessages(null);
+        workerHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (retriever != null) {
+                    retriever.release();
+                    retriever = null;
+                }
+            }
+        });
+        thread.quitSafely();
+        frames.evictAll();
+    }
+
+    /**
+     * Extracts the requested frame and then the prefetched ones, checking for a newer request
+     * before each of them. Runs on the worker thread.
+     */
+    private void process() {
+        while (!isFailed) {
+            int bucket = requestedBucket.get();
+            if (bucket != NO_BUCKET) {
+                Bitmap frame = getFrame(bucket);
+                requestedBucket.compareAndSet(bucket, NO_BUCKET);
+                if (frame != null) {
+                    deliver(bucket, frame);
+                }
+                continue;
+            }
+
+            Integer prefetchBucket;
+            synchronized (prefetchBuckets) {
+                prefetchBucket = prefetchBuckets.poll();
+            }
+            if (prefetchBucket == null) {
+                return;
+            }
+            getFrame(prefetchBucket);
+        }
+    }
+
+    private void deliver(final int bucket, final Bitmap frame) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // Drop the frames of the positions which were dragged past
+                if (callback != null && wantedBucket == bucket) {
+                    callback.onPreviewLoaded(bucket * BUCKET_MS, frame);
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private Bitmap getFrame(int bucket) {
+        Bitmap frame = frames.get(bucket);
+        if (frame != null) {
+            return frame;
+        }
+
+        MediaMetadataRetriever retriever = getRetriever();
+        if (retriever == null) {
+            return null;
+        }
+
+        long timeUs = bucket * BUCKET_MS * MICROSECONDS_IN_MILLISECOND;
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                frame = retriever.getScaledFrameAtTime(
+                        timeUs,
+                        MediaMetadataRetriever.OPTION_CLOSEST_SYNC,
+                        frameWidth,
+                        frameHeight
+                );
+            } else {
+                Bitmap fullFrame = retriever.getFrameAtTime(
+                        timeUs,
+                        MediaMetadataRetriever.OPTION_CLOSEST_SYNC
+                );
+                if (fullFrame != null) {
+                    frame = Bitmap.createScaledBitmap(fullFrame, frameWidth, frameHeight, true);
+                    if (frame != fullFrame) {
+                        fullFrame.recycle();
+                    }
+                }
+            }
+        } catch (RuntimeException exception) {
+            Log.w(TAG, "Could not extract the frame at " + timeUs + "us", exception);
+            return null;
+        }
+
+        if (frame != null) {
+            frames.put(bucket, frame);
+        }
+        return frame;
+    }
+
+    @Nullable
+    private MediaMetadataRetriever getRetriever() {
+        if (retriever != null) {
+            return retriever;
+        }
+
+        MediaMetadataRetriever newRetriever = new MediaMetadataRetriever();
+        try {
+            if (dataSource.startsWith("http://") || dataSource.startsWith("https://")) {
+                newRetriever.setDataSource(dataSource, new HashMap<String, String>());
+            } else {
+                newRetriever.setDataSource(dataSource);
+            }
+            frameHeight = getFrameHeight(newRetriever);
+        } catch (RuntimeException exception) {
+            Log.w(TAG, "Could not read the video " + dataSource, exception);
+            newRetriever.release();
+            isFailed = true;
+            return null;
+        }
+
+        retriever = newRetriever;
+        return retriever;
+    }
+
+    private int getFrameHeight(MediaMetadataRetriever retriever) {
+        int videoWidth = parseInt(retriever.extractMetadata(
+                MediaMetadataRetriever.METADATA_KEY_VIDEO_WIDTH));
+        int videoHeight = parseInt(retriever.extractMetadata(
+                MediaMetadataRetriever.METADATA_KEY_VIDEO_HEIGHT));
+        if (videoWidth <= 0 || videoHeight <= 0) {
+            // Assume 16:9 when the size is unknown
+            return frameWidth * 9 / 16;
+        }
+        return Math.max(1, frameWidth * videoHeight / videoWidth);
+    }
+
+    private static int parseInt(@Nullable String value) {
+        try {
+            return value != null ? Integer.parseInt(value) : 0;
+        } catch (NumberFormatException exception) {
+            return 0;
+        }
+    }
+}
@@ -22,6 +22,9 @@ import android.media.AudioManager;
 import android.media.MediaPlayer;
 import android.media.PlaybackParams;
 import android.os.Build;
+import android.view.SurfaceHolder;
+
+import androidx.annotation.Nullable;
 
 import java.io.IOException;
 
@@ -31,29 +34,78 @@ import bg.devlabs.fullscreenvideoview.model.MediaPlayerErrorType;
 class FullscreenVideoMediaPlayer extends MediaPlayer {
 
     private VideoMediaPlayerListener listener;
+    private final PlayerStateMirror stateMirror = new PlayerStateMirror();
+    private final SeekScheduler seekScheduler = new SeekScheduler(this, stateMirror);
+    private final PlayerCommandExecutor commandExecutor = new PlayerCommandExecutor();
+    private final PrepareWatchdog prepareWatchdog = new PrepareWatchdog(this::onPrepareTimedOut);
 
     private boolean isAutoStartEnabled;
     private boolean canPause = true;
+    private boolean isEvicted;
+    private int bufferPercentage;
+    private long prepareTimeMs = -1;
 
     FullscreenVideoMediaPlayer(VideoMediaPlayerListener listener) {
         this.listener = listener;
     }
 
-    void init(String videoPath) {
-        try {
-            setDataSource(videoPath);
-            setupAudio();
-            setupOnPreparedListener();
-            setupOnErrorListener();
-            setupOnCompletionListener();
-        } catch (IOException exception) {
-            listener.onMediaPlayerError(
-                    new MediaPlayerError(
-                            MediaPlayerErrorType.DATA_SOURCE_READ,
-                            exception.getLocalizedMessage()
-                    )
-            );
-        }
+    void init(final String videoPath) {
+        // Local files are fully buffered, remote ones report their progress while buffering
+        bufferPercentage = isRemote(videoPath) ? 0 : 100;
+        isEvicted = false;
+        seekScheduler.reset();
+        stateMirror.reset();
+        setupOnPreparedListener();
+        setupOnErrorListener();
+        setupOnCompletionListener();
+        setupOnBufferingUpdateListener();
+        setupOnInfoListener();
+        setupOnSeekCompleteListener();
+
+        commandExecutor.execute(() -> {
+            try {
+                setDataSource(videoPath);
+                setupAudio();
+            } catch (final IOException exception) {
+                commandExecutor.postToMain(() -> listener.onMediaPlayerError(
+                        new MediaPlayerError(
+                                MediaPlayerErrorType.DATA_SOURCE_READ,
+                                exception.getLocalizedMessage()
+                        )
+                ));
+            }
+        });
+    }
+
+    /**
+     * Resets the media player and sets a new data source, so that the same player and display
+     * can be reused for another video. The player has to be prepared again afterwards.
+     *
+     * @param videoPath     the video URL or file path
+     * @param surfaceHolder the holder of the display surface
+     */
+    void changeDataSource(String videoPath, @Nullable SurfaceHolder surfaceHolder) {
+        reset();
+        init(videoPath);
+        // Attach the display again on the main thread once the reset is done. If the surface is
+        // not created yet or already destroyed, it's attached by SurfaceHolder.Callback
+        commandExecutor.execute(() -> {
+            // Nothing to do, the callback runs after the queued commands
+        }, () -> {
+            if (surfaceHolder != null && surfaceHolder.getSurface().isValid()) {
+                setDisplay(surfaceHolder);
+            }
+        });
+    }
+
+    /**
+     * Runs the player commands in order on a dedicated thread instead of the calling one.
+     * The media player callbacks are still delivered on the main thread, because the player is
+     * created there. The display is set on the calling thread, because the surface must not be
+     * used by the player after SurfaceHolder.Callback#surfaceDestroyed returns.
+     */
+    void enableBackgroundCommands() {
+        commandExecutor.enableBackground();
     }
 
     private void setupAudio() {
@@ -73,6 +125,10 @@ class FullscreenVideoMediaPlayer extends MediaPlayer {
         setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
             @Override
             public void onPrepared(MediaPlayer mediaPlayer) {
+                prepareTimeMs = prepareWatchdog.stop();
+                // The duration does not change after the media player is prepared
+                stateMirror.onPrepared(getDuration());
+                DecoderBudgetManager.getInstance().onPrepared(FullscreenVideoMediaPlayer.this);
                 listener.onMediaPlayerPrepared(
                         mediaPlayer,
                         getVideoWidth(),
@@ -87,10 +143,12 @@ class FullscreenVideoMediaPlayer extends MediaPlayer {
         setOnErrorListener(new MediaPlayer.OnErrorListener() {
             @Override
             public boolean onError(MediaPlayer mp, int what, int extra) {
-                listener.onMediaPlayerError(
-                        new MediaPlayerError(MediaPlayerErrorType.ASYNC_OPERATION, what)
+                prepareWatchdog.cancel();
+                stateMirror.onPaused();
+                // A handled error must not complete the video, which would clear its position
+                return listener.onMediaPlayerError(
+                        new MediaPlayerError(MediaPlayerErrorType.ASYNC_OPERATION, what, extra)
                 );
-                return false;
             }
         });
     }
@@ -99,13 +157,68 @@ class FullscreenVideoMediaPlayer extends MediaPlayer {
         setOnCompletionListener(new MediaPlayer.OnCompletionListener() {
             @Override
             public void onCompletion(MediaPlayer mediaPlayer) {
+                stateMirror.onCompleted();
                 listener.onMediaPlayerCompletion();
             }
         });
     }
 
+    private void setupOnBufferingUpdateListener() {
+        setOnBufferingUpdateListener(new MediaPlayer.OnBufferingUpdateListener() {
+            @Override
+            public void onBufferingUpdate(MediaPlayer mediaPlayer, int percent) {
+                bufferPercentage = percent;
+                listener.onMediaPlayerBufferingUpdate(percent);
+            }
+        });
+    }
+
+    private void setupOnInfoListener() {
+        setOnInfoListener(new MediaPlayer.OnInfoListener() {
+            @Override
+            public boolean onInfo(MediaPlayer mediaPlayer, int what, int extra) {
+                if (what == MEDIA_INFO_BUFFERING_START) {
+                    stateMirror.onBufferingChanged(true);
+                    listener.onMediaPlayerBufferingStarted();
+                } else if (what == MEDIA_INFO_BUFFERING_END) {
+                    stateMirror.onBufferingChanged(false);
+                    listener.onMediaPlayerBufferingEnded();
+                } else if (what == MEDIA_INFO_VIDEO_RENDERING_START) {
+                    listener.onMediaPlayerRenderingStarted();
+                }
+                return false;
+            }
+        });
+    }
+
+    private void setupOnSeekCompleteListener() {
+        setOnSeekCompleteListener(new MediaPlayer.OnSeekCompleteListener() {
+            @Override
+            public void onSeekComplete(MediaPlayer mediaPlayer) {
+                // A seek to the previous sync frame does not land exactly on the target
+                stateMirror.onPositionSynced(getCurrentPosition());
+                int positionMs = seekScheduler.getInFlightPositionMs();
+                long latencyMs = seekScheduler.onSeekComplete();
+                if (latencyMs != -1) {
+                    listener.onMediaPlayerSeekCompleted(positionMs, latencyMs);
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks whether a video is loaded over the network. Local sources, including content and
+     * resource URIs, are fully buffered and report no buffering updates.
+     *
+     * @param videoPath the video URL or file path
+     * @return true if the video is loaded over HTTP or HTTPS
+     */
+    static boolean isRemote(String videoPath) {
+        return videoPath.startsWith("http://") || videoPath.startsWith("https://");
+    }
+
     public int getBufferPercentage() {
-        return 0;
+        return bufferPercentage;
     }
 
     public boolean canPause() {
@@ -113,20 +226,222 @@ class FullscreenVideoMediaPlayer extends MediaPlayer {
     }
 
     public void onPauseResume() {
-        if (isPlaying()) {
+        if (stateMirror.isPlaying()) {
             pause();
         } else {
             start();
-            listener.onMediaPlayerStarted();
+            // An evicted media player is prepared again first instead
+            if (stateMirror.isPlaying()) {
+                listener.onMediaPlayerStarted();
+            }
         }
     }
 
     public void onDetach() {
+        prepareWatchdog.cancel();
+        seekScheduler.reset();
+        stateMirror.reset();
+        DecoderBudgetManager.getInstance().onReleased(this);
+        setOnPreparedListener(null);
+        commandExecutor.execute(() -> {
+            if (super.isPlaying()) {
+                super.stop();
+            }
+            super.release();
+        });
+    }
+
+    /**
+     * Resets the media player to its idle state instead of releasing it, so that it can be
+     * reused by another view. The callbacks of the previous source are not delivered anymore.
+     *
+     * @param onRecycled called on the main thread once the media player is reset
+     */
+    void recycle(Runnable onRecycled) {
+        prepareWatchdog.cancel();
+        seekScheduler.reset();
+        stateMirror.reset();
+        DecoderBudgetManager.getInstance().onReleased(this);
+        clearListeners();
+        // The surface may be released on the main thread, so it's detached there
+        setDisplay(null);
+        commandExecutor.execute(() -> super.reset(), onRecycled);
+    }
+
+    /**
+     * Prepares a recycled media player for a new view. Clears the options of the previous view.
+     *
+     * @param listener the listener of the new view
+     */
+    void reuse(VideoMediaPlayerListener listener) {
+        this.listener = listener;
+        this.isAutoStartEnabled = false;
+        this.canPause = true;
+        prepareWatchdog.setTimeout(0);
+        commandExecutor.disableBackground();
+    }
+
+    /**
+     * Changes the listener of the media player, for example when a prepared playlist player
+     * becomes the playing one.
+     *
+     * @param listener the new listener
+     */
+    void setListener(VideoMediaPlayerListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Chains a prepared media player to start when the playback of this one completes.
+     *
+     * @param nextPlayer the prepared media player or null to remove the chained one
+     */
+    void setNextPlayer(@Nullable FullscreenVideoMediaPlayer nextPlayer) {
+        commandExecutor.execute(() -> {
+            try {
+                setNextMediaPlayer(nextPlayer);
+            } catch (IllegalArgumentException | IllegalStateException exception) {
+                // One of the players was reset or released in the meantime, so it's not chained
+            }
+        });
+    }
+
+    /**
+     * Updates the state of a chained media player, which was started when the playback of
+     * the previous one completed.
+     */
+    void onStartedAsNext() {
+        stateMirror.onStarted();
+        DecoderBudgetManager.getInstance().onUsed(this);
+    }
+
+    /**
+     * Evicts the media player, because the decoder budget is exceeded. The listener resets it
+     * and it's prepared again when it's started.
+     *
+     * @return true if the listener reset the media player, false if it's kept
+     */
+    boolean evict() {
+        isEvicted = listener.onMediaPlayerEvicted();
+        return isEvicted;
+    }
+
+    private void clearListeners() {
         setOnPreparedListener(null);
-        if (isPlaying()) {
-            stop();
+        setOnErrorListener(null);
+        setOnCompletionListener(null);
+        setOnBufferingUpdateListener(null);
+        setOnInfoListener(null);
+        setOnSeekCompleteListener(null);
+    }
+
+    /**
+     * Changes the deadline of the preparation. A preparation which is not completed before it is
+     * cancelled by resetting the media player and reported as
+     * {@link MediaPlayerErrorType#PREPARE_TIMEOUT}.
+     *
+     * @param timeoutMs the deadline in milliseconds or 0 to wait without a deadline
+     */
+    void setPrepareTimeout(long timeoutMs) {
+        prepareWatchdog.setTimeout(timeoutMs);
+    }
+
+    /**
+     * Gets the time from calling {@link #prepareAsync()} until the media player was prepared.
+     *
+     * @return the prepare time in milliseconds or -1 if it's not prepared
+     */
+    long getPrepareTimeMs() {
+        return prepareTimeMs;
+    }
+
+    private void onPrepareTimedOut() {
+        reset();
+        listener.onMediaPlayerError(
+                new MediaPlayerError(MediaPlayerErrorType.PREPARE_TIMEOUT, MEDIA_ERROR_TIMED_OUT)
+        );
+    }
+
+    @Override
+    public void prepareAsync() {
+        prepareTimeMs = -1;
+        prepareWatchdog.start();
+        commandExecutor.execute(() -> super.prepareAsync());
+    }
+
+    @Override
+    public void start() {
+        if (isEvicted) {
+            if (listener.onMediaPlayerRestoreRequested()) {
+                return;
+            }
+            // Nothing was reset, so it's started as it is
+            isEvicted = false;
         }
-        release();
+
+        stateMirror.onStarted();
+        DecoderBudgetManager.getInstance().onUsed(this);
+        commandExecutor.execute(() -> super.start(), this::notifyPlaybackStateChanged);
+    }
+
+    @Override
+    public void pause() {
+        stateMirror.onPaused();
+        commandExecutor.execute(() -> {
+            super.pause();
+            // Correct the drift of the extrapolated position once the playback has stopped
+            final int positionMs = getCurrentPosition();
+            commandExecutor.postToMain(() -> stateMirror.onPositionSynced(positionMs));
+        }, this::notifyPlaybackStateChanged);
+    }
+
+    @Override
+    public void stop() {
+        stateMirror.onPaused();
+        commandExecutor.execute(() -> super.stop(), this::notifyPlaybackStateChanged);
+    }
+
+    @Override
+    public void reset() {
+        prepareWatchdog.cancel();
+        prepareTimeMs = -1;
+        stateMirror.reset();
+        DecoderBudgetManager.getInstance().onReleased(this);
+        commandExecutor.execute(() -> super.reset());
+    }
+
+    @Override
+    public void release() {
+        prepareWatchdog.cancel();
+        stateMirror.reset();
+        DecoderBudgetManager.getInstance().onReleased(this);
+        commandExecutor.execute(() -> super.release());
+    }
+
+    @Override
+    public void seekTo(int msec) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            // MediaPlayer#seekTo(int) delegates to the overridden seekTo(long, int) on API 26+,
+            // which would queue the seek a second time
+            commandExecutor.execute(() -> super.seekTo((long) msec, SEEK_PREVIOUS_SYNC));
+        } else {
+            commandExecutor.execute(() -> super.seekTo(msec));
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.O)
+    @Override
+    public void seekTo(long msec, int mode) {
+        commandExecutor.execute(() -> super.seekTo(msec, mode));
+    }
+
+    @Override
+    public void setVolume(float leftVolume, float rightVolume) {
+        commandExecutor.execute(() -> super.setVolume(leftVolume, rightVolume));
+    }
+
+    private void notifyPlaybackStateChanged() {
+        listener.onMediaPlayerPlaybackStateChanged();
     }
 
     public void enableAutoStart() {
@@ -141,12 +456,41 @@ class FullscreenVideoMediaPlayer extends MediaPlayer {
     public void changePlaybackSpeed(float speed) {
         PlaybackParams playbackParams = new PlaybackParams();
         playbackParams.setSpeed(speed);
-        setPlaybackParams(playbackParams);
+        stateMirror.onSpeedChanged(speed);
+        commandExecutor.execute(
+                () -> setPlaybackParams(playbackParams),
+                this::notifyPlaybackStateChanged
+        );
+    }
+
+    /**
+     * Gets the mirrored state of the media player, which can be read without crossing into
+     * the media server.
+     *
+     * @return the state mirror
+     */
+    PlayerStateMirror getStateMirror() {
+        return stateMirror;
     }
 
+    /**
+     * Seeks by a duration relatively to the latest requested position. Repeated calls are
+     * coalesced by the {@link SeekScheduler}.
+     *
+     * @param duration the duration in milliseconds
+     */
     public void seekBy(int duration) {
-        int position = getCurrentPosition();
-        position += duration; // milliseconds
-        seekTo(position);
+        seekScheduler.seekBy(duration);
+    }
+
+    /**
+     * Seeks to a position through the {@link SeekScheduler}, so that at most one seek is in
+     * flight at a time.
+     *
+     * @param position  the position in milliseconds
+     * @param isPrecise true to seek to the exact frame, false to seek to the previous sync frame
+     */
+    public void scheduleSeek(int position, boolean isPrecise) {
+        seekScheduler.seekTo(position, isPrecise);
     }
 }
@@ -20,7 +20,6 @@ import static bg.devlabs.fullscreenvideoview.Constants.VIEW_TAG_CLICKED;
 
 import android.content.Context;
 import android.content.res.Configuration;
-import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.media.MediaPlayer;
 import android.os.Build;
@@ -40,17 +39,28 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.core.content.ContextCompat;
+import androidx.core.view.ViewCompat;
 
 import java.io.File;
+import java.util.List;
 import java.util.Objects;
 
+import bg.devlabs.fullscreenvideoview.listener.OnBufferHealthListener;
 import bg.devlabs.fullscreenvideoview.listener.OnErrorListener;
+import bg.devlabs.fullscreenvideoview.listener.OnPlaybackPositionListener;
+import bg.devlabs.fullscreenvideoview.listener.OnPlaylistItemChangedListener;
+import bg.devlabs.fullscreenvideoview.listener.OnSeekCompletedListener;
 import bg.devlabs.fullscreenvideoview.listener.OnVideoCompletedListener;
 import bg.devlabs.fullscreenvideoview.listener.OnVideoPreparedListener;
+import bg.devlabs.fullscreenvideoview.listener.PlaybackMetricsSink;
 import bg.devlabs.fullscreenvideoview.listener.mediacontroller.MediaControllerListener;
 import bg.devlabs.fullscreenvideoview.model.Arguments;
 import bg.devlabs.fullscreenvideoview.model.Margins;
 import bg.devlabs.fullscreenvideoview.model.MediaPlayerError;
+import bg.devlabs.fullscreenvideoview.model.MediaPlayerErrorType;
+import bg.devlabs.fullscreenvideoview.model.PlaybackEventType;
+import bg.devlabs.fullscreenvideoview.model.RetryPolicy;
+import bg.devlabs.fullscreenvideoview.model.VideoScaleMode;
 import bg.devlabs.fullscreenvideoview.orientation.LandscapeOrientation;
 import bg.devlabs.fullscreenvideoview.orientation.OrientationListener;
 import bg.devlabs.fullscreenvideoview.orientation.OrientationManager;
@@ -68,6 +78,8 @@ public class FullscreenVideoView extends FrameLayout {
     @Nullable
     private ImageView thumbnailImageView;
     @Nullable
+    private ThumbnailLoader thumbnailLoader;
+    @Nullable
     private ImageButton fullscreenButton;
     @Nullable
     private VideoControllerView controller;
@@ -77,7 +89,14 @@ public class FullscreenVideoView extends FrameLayout {
     private OrientationManager orientationManager;
     private SurfaceHolder.Callback surfaceHolderCallback;
     private int seekToTimeMillis;
+    // A one-shot position to continue from when the same video is prepared again, or -1
+    private int restorePositionMs = -1;
+    // The video which is set up again when the view is attached again, e.g. by a RecyclerView
+    private final DetachedSource detachedSource = new DetachedSource();
     private ErrorHandler errorHandler = new ErrorHandler();
+    private BufferHealthTracker bufferHealthTracker = new BufferHealthTracker();
+    private PlaybackPositionTracker positionTracker = new PlaybackPositionTracker();
+    private PlaybackMetrics playbackMetrics = new PlaybackMetrics();
     @Nullable
     private AttributeSet attrs = null;
     private Arguments args = new Arguments();
@@ -86,11 +105,143 @@ public class FullscreenVideoView extends FrameLayout {
     private VideoMediaPlayerListener videoMediaPlayerListener;
     private OrientationListener orientationListener;
     private OnVideoPreparedListener onVideoPreparedListener;
+    @Nullable
+    private OnSeekCompletedListener onSeekCompletedListener;
+    @Nullable
+    private OnPlaylistItemChangedListener onPlaylistItemChangedListener;
+    @Nullable
+    private MediaControllerListener mediaControllerListener;
+    private final MediaControllerListener controllerEventListener = new MediaControllerListener() {
+        @Override
+        public void onPlayClicked() {
+            recordEvent(PlaybackEventType.PLAY_CLICKED, 0);
+            if (mediaControllerListener != null) {
+                mediaControllerListener.onPlayClicked();
+            }
+        }
+
+        @Override
+        public void onPauseClicked() {
+            recordEvent(PlaybackEventType.PAUSE_CLICKED, 0);
+            if (mediaControllerListener != null) {
+                mediaControllerListener.onPauseClicked();
+            }
+        }
+
+        @Override
+        public void onRewindClicked() {
+            recordEvent(PlaybackEventType.REWIND_CLICKED, 0);
+            if (mediaControllerListener != null) {
+                mediaControllerListener.onRewindClicked();
+            }
+        }
+
+        @Override
+        public void onFastForwardClicked() {
+            recordEvent(PlaybackEventType.FAST_FORWARD_CLICKED, 0);
+            if (mediaControllerListener != null) {
+                mediaControllerListener.onFastForwardClicked();
+            }
+        }
+
+        @Override
+        public void onFullscreenClicked() {
+            recordEvent(PlaybackEventType.FULLSCREEN_CLICKED, 0);
+            if (mediaControllerListener != null) {
+                mediaControllerListener.onFullscreenClicked();
+            }
+        }
+
+        @Override
+        public void onSeekBarProgressChanged(long progressMs) {
+            recordEvent(PlaybackEventType.SEEK_BAR_DRAGGED, progressMs);
+            if (mediaControllerListener != null) {
+                mediaControllerListener.onSeekBarProgressChanged(progressMs);
+            }
+        }
+    };
+    private final PlaylistQueue playlistQueue = new PlaylistQueue();
+    private final PlaylistPlayer.Callback playlistPlayerCallback = new PlaylistPlayer.Callback() {
+        @Override
+        public void onPlaylistPlayerPrepared(PlaylistPlayer playlistPlayer) {
+            if (playlistPlayer.isStartRequested()) {
+                switchToPlaylistPlayer(playlistPlayer, false);
+            } else {
+                chainNextPlaylistPlayer();
+            }
+        }
+
+        @Override
+        public void onPlaylistPlayerEvicted(PlaylistPlayer playlistPlayer) {
+            // It's prepared again when the playlist gets to it
+            unchainPlaylistPlayer(playlistPlayer);
+            playlistQueue.detachPlayer(playlistPlayer);
+            playlistPlayer.release();
+        }
+
+        @Override
+        public void onPlaylistPlayerError(PlaylistPlayer playlistPlayer, MediaPlayerError error) {
+            boolean isStartRequested = playlistPlayer.isStartRequested();
+            unchainPlaylistPlayer(playlistPlayer);
+            playlistQueue.detachPlayer(playlistPlayer);
+            playlistPlayer.release();
+            if (isStartRequested) {
+                // Load the item in the playing media player, which reports the error
+                playlistQueue.releasePlayers();
+                playlistQueue.setIndex(playlistPlayer.index);
+                changeSource(playlistQueue.getVideoPath(playlistPlayer.index));
+                notifyPlaylistItemChanged();
+            }
+        }
+    };
 
     private boolean isVisible;
     private int originalWidth;
     private int originalHeight;
     private Margins margins;
+    private boolean isVideoCacheEnabled;
+    private boolean isSeekPreviewEnabled;
+    @Nullable
+    private String thumbnailTrackSource;
+    @Nullable
+    private VisibilityTracker visibilityTracker;
+    private boolean isReleasedWhenHidden;
+    // The video which is set up once the view becomes visible
+    @Nullable
+    private String deferredVideoPath;
+    @Nullable
+    private String currentVideoPath;
+    private boolean isMediaPlayerReleasedWhenHidden;
+    // Controlled by FeedAutoplayCoordinator
+    private boolean isPreparationHeld;
+    private boolean isPlayRequested;
+    private boolean isRestartRequested;
+    private boolean isResumePositionEnabled;
+    // Set while the video is prepared again after a transient error
+    private boolean isRecoveryPending;
+    // Set while the seek to the start position is in flight, the video is started afterwards
+    private boolean isStartAfterSeekPending;
+    // The position of the first frame poster or -1 if the static thumbnail is used
+    private int posterTimeMillis = -1;
+    private boolean isPosterFramePending;
+    private VideoScaleMode videoScaleMode = VideoScaleMode.FIT;
+    private long prepareTimeoutMs;
+    private final Runnable saveResumePositionRunnable = new Runnable() {
+        @Override
+        public void run() {
+            saveResumePosition();
+            if (fullscreenVideoMediaPlayer != null
+                    && fullscreenVideoMediaPlayer.getStateMirror().isPlaying()) {
+                postDelayed(this, Constants.RESUME_POSITION_SAVE_INTERVAL);
+            }
+        }
+    };
+    @Nullable
+    private ImageView seekPreviewImageView;
+    @Nullable
+    private SeekPreviewProvider seekPreviewProvider;
+    private boolean isBackgroundPlayerCommandsEnabled;
+    private long videoCacheMaxSizeBytes = VideoCacheProxy.DEFAULT_MAX_SIZE_BYTES;
 
     public FullscreenVideoView(@NonNull Context context) {
         super(context);
@@ -116,7 +267,14 @@ public class FullscreenVideoView extends FrameLayout {
         // Skip this init rows - needed when changing FullscreenVideoView properties in XML
         if (!isInEditMode()) {
             initVideoMediaPlayerListener();
-            fullscreenVideoMediaPlayer = new FullscreenVideoMediaPlayer(videoMediaPlayerListener);
+            fullscreenVideoMediaPlayer =
+                    MediaPlayerPool.getInstance().acquire(videoMediaPlayerListener);
+            if (isBackgroundPlayerCommandsEnabled) {
+                fullscreenVideoMediaPlayer.enableBackgroundCommands();
+            }
+            fullscreenVideoMediaPlayer.setPrepareTimeout(prepareTimeoutMs);
+            positionTracker.setMediaPlayer(fullscreenVideoMediaPlayer);
+            errorHandler.setRecoveryListener(this::recoverMediaPlayer);
             initOrientationListener();
             orientationManager = new OrientationManager(getContext(), orientationListener);
             orientationManager.enable();
@@ -125,6 +283,7 @@ public class FullscreenVideoView extends FrameLayout {
         if (controller != null) {
             controller.setOrientationManager(orientationManager);
             controller.setVideoMediaPlayer(fullscreenVideoMediaPlayer);
+            controller.setOnMediaControllerListener(controllerEventListener);
             controller.init(attrs);
         }
         setupProgressBarColor();
@@ -142,11 +301,44 @@ public class FullscreenVideoView extends FrameLayout {
     }
 
     private void hideThumbnail() {
+        isPosterFramePending = false;
         if (thumbnailImageView != null && thumbnailImageView.getVisibility() == View.VISIBLE) {
+            thumbnailImageView.animate().cancel();
+            thumbnailImageView.setAlpha(1f);
             thumbnailImageView.setVisibility(GONE);
         }
     }
 
+    private void showThumbnail() {
+        if (thumbnailImageView != null) {
+            thumbnailImageView.animate().cancel();
+            thumbnailImageView.setAlpha(1f);
+            thumbnailImageView.setVisibility(VISIBLE);
+        }
+    }
+
+    /**
+     * Cross-fades the thumbnail to the poster frame rendered on the surface.
+     */
+    private void fadeOutPosterThumbnail() {
+        isPosterFramePending = false;
+        final ImageView imageView = thumbnailImageView;
+        if (imageView == null || imageView.getVisibility() != View.VISIBLE) {
+            return;
+        }
+
+        imageView.animate()
+                .alpha(0f)
+                .setDuration(getResources().getInteger(android.R.integer.config_shortAnimTime))
+                .withEndAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        imageView.setVisibility(GONE);
+                        imageView.setAlpha(1f);
+                    }
+                });
+    }
+
     private void setUpSurfaceHolder() {
         if (surfaceView != null) {
             surfaceHolderCallback = new SurfaceHolder.Callback() {
@@ -177,9 +369,16 @@ public class FullscreenVideoView extends FrameLayout {
         LayoutInflater layoutInflater = LayoutInflater.from(getContext());
         layoutInflater.inflate(R.layout.fullscreen_video_view, this, true);
         surfaceView = findViewById(R.id.surface_view);
+        if (surfaceView != null) {
+            surfaceView.setScaleMode(videoScaleMode);
+        }
         progressBar = findViewById(R.id.progress_bar);
         controller = findViewById(R.id.video_controller);
         thumbnailImageView = findViewById(R.id.thumbnail_image_view);
+        if (thumbnailImageView != null) {
+            thumbnailLoader = new ThumbnailLoader(thumbnailImageView);
+        }
+        seekPreviewImageView = findViewById(R.id.seek_preview_image_view);
     }
 
     private void initOnBackPressedListener() {
@@ -199,21 +398,65 @@ public class FullscreenVideoView extends FrameLayout {
             @Override
             public void onMediaPlayerPrepared(MediaPlayer mediaPlayer, int videoWidth, int videoHeight, boolean isAutoStartEnabled) {
                 hideProgressBar();
+                playbackMetrics.onPrepared();
+                if (fullscreenVideoMediaPlayer != null
+                        && fullscreenVideoMediaPlayer.getPrepareTimeMs() != -1) {
+                    playbackMetrics.onPrepareTimeMeasured(
+                            fullscreenVideoMediaPlayer.getPrepareTimeMs()
+                    );
+                }
+                recordEvent(PlaybackEventType.PREPARED, 0);
+                if (isRecoveryPending) {
+                    isRecoveryPending = false;
+                    playbackMetrics.onRecovered();
+                    errorHandler.onRecovered();
+                }
 
                 if (surfaceView != null) {
-                    surfaceView.updateLayoutParams(videoWidth, videoHeight);
+                    surfaceView.setVideoSize(videoWidth, videoHeight);
+                }
+                if (controller != null) {
+                    // The media player plays at the normal speed after it's prepared again
+                    controller.resetPlaybackSpeed();
                 }
 
+                isStartAfterSeekPending = false;
+                isPosterFramePending = false;
+                int startPositionMs = getStartPositionMs();
+                boolean isStarted = false;
                 if (!isVisible) {
                     isMediaPlayerPrepared = true;
-                    // Start media player if auto start is enabled
-                    if (isAutoStartEnabled) {
-                        mediaPlayer.start();
-                        hideThumbnail();
+                    // Start media player if auto start is enabled or it was requested
+                    if (isAutoStartEnabled || isPlayRequested || isRestartRequested) {
+                        isRestartRequested = false;
+                        if (startPositionMs > 0) {
+                            // Start once the seek completes, so that the beginning of the video
+                            // is neither decoded nor fetched
+                            isStartAfterSeekPending = true;
+                        } else {
+                            mediaPlayer.start();
+                            hideThumbnail();
+                            isStarted = true;
+                        }
                     }
                 }
-                // Seek to a specific time
-                fullscreenVideoMediaPlayer.seekTo(seekToTimeMillis);
+                // Seek to a specific time, a video started from its beginning is already there
+                if (!isStarted) {
+                    int positionMs = startPositionMs;
+                    if (posterTimeMillis != -1 && !isStartAfterSeekPending) {
+                        // Render the poster frame on the paused surface
+                        isPosterFramePending = true;
+                        if (positionMs <= 0) {
+                            positionMs = posterTimeMillis;
+                        }
+                    }
+                    fullscreenVideoMediaPlayer.scheduleSeek(positionMs, true);
+                }
+                restorePositionMs = -1;
+                saveVideoDuration();
+                positionTracker.onPlaybackStateChanged();
+                // Prepare the next playlist item while this one plays
+                prepareNextPlaylistPlayer();
 
                 // Notify the listener if available
                 if (onVideoPreparedListener != null) {
@@ -222,21 +465,132 @@ public class FullscreenVideoView extends FrameLayout {
             }
 
             @Override
-            public void onMediaPlayerError(MediaPlayerError error) {
-                errorHandler.handle(getContext(), error);
+            public boolean onMediaPlayerError(MediaPlayerError error) {
+                playbackMetrics.onError(error.getType());
+                recordEvent(PlaybackEventType.ERROR, error.getType().ordinal());
+                isStartAfterSeekPending = false;
+                if (!errorHandler.handle(getContext(), error)) {
+                    isRecoveryPending = false;
+                    playbackMetrics.onFailed();
+                    hideProgressBar();
+                    return false;
+                }
+
+                // Resume from the last known position once it's prepared again
+                if (isMediaPlayerPrepared && fullscreenVideoMediaPlayer != null) {
+                    restorePositionMs =
+                            fullscreenVideoMediaPlayer.getStateMirror().getCurrentPosition();
+                    isRestartRequested = true;
+                }
+                isMediaPlayerPrepared = false;
+                showProgress();
+                return true;
             }
 
             @Override
             public void onMediaPlayerCompletion() {
+                recordEvent(PlaybackEventType.COMPLETED, 0);
+                if (isResumePositionEnabled && currentVideoPath != null) {
+                    // Start the watched video from its beginning next time
+                    removeCallbacks(saveResumePositionRunnable);
+                    ResumePositionStore.getInstance(getContext()).remove(currentVideoPath);
+                }
+                positionTracker.onPlaybackStateChanged();
                 if (onVideoCompletedListener != null) {
                     onVideoCompletedListener.onFinished();
                 }
+                onPlaylistItemCompleted();
             }
 
             @Override
             public void onMediaPlayerStarted() {
                 hideThumbnail();
             }
+
+            @Override
+            public void onMediaPlayerRenderingStarted() {
+                playbackMetrics.onRenderingStarted();
+                if (isPosterFramePending) {
+                    fadeOutPosterThumbnail();
+                }
+            }
+
+            @Override
+            public boolean onMediaPlayerEvicted() {
+                return releaseHiddenMediaPlayer();
+            }
+
+            @Override
+            public boolean onMediaPlayerRestoreRequested() {
+                if (!isMediaPlayerReleasedWhenHidden) {
+                    return false;
+                }
+
+                // Continue from the saved position once it's prepared again
+                isRestartRequested = true;
+                setupDeferredMediaPlayer();
+                return true;
+            }
+
+            @Override
+            public void onMediaPlayerPlaybackStateChanged() {
+                if (controller != null) {
+                    controller.updatePausePlay();
+                    // Resume the progress updates, which stop while the video is paused
+                    controller.refreshProgress();
+                }
+                positionTracker.onPlaybackStateChanged();
+                updateResumePositionSaving();
+            }
+
+            @Override
+            public void onMediaPlayerBufferingUpdate(int percent) {
+                if (fullscreenVideoMediaPlayer != null) {
+                    PlayerStateMirror playerState = fullscreenVideoMediaPlayer.getStateMirror();
+                    bufferHealthTracker.onBufferingUpdate(
+                            percent,
+                            playerState.getCurrentPosition(),
+                            playerState.getDuration()
+                    );
+                }
+            }
+
+            @Override
+            public void onMediaPlayerBufferingStarted() {
+                showProgress();
+                bufferHealthTracker.onBufferingStarted();
+                recordEvent(PlaybackEventType.BUFFERING_STARTED, 0);
+                positionTracker.onPlaybackStateChanged();
+            }
+
+            @Override
+            public void onMediaPlayerBufferingEnded() {
+                hideProgressBar();
+                long stallDurationMs = bufferHealthTracker.onBufferingEnded();
+                if (stallDurationMs != -1) {
+                    playbackMetrics.onBufferingEnded(stallDurationMs);
+                    recordEvent(PlaybackEventType.BUFFERING_ENDED, stallDurationMs);
+                }
+                positionTracker.onPlaybackStateChanged();
+            }
+
+            @Override
+            public void onMediaPlayerSeekCompleted(int positionMs, long latencyMs) {
+                playbackMetrics.onSeekCompleted(latencyMs);
+                if (isStartAfterSeekPending && fullscreenVideoMediaPlayer != null) {
+                    isStartAfterSeekPending = false;
+                    fullscreenVideoMediaPlayer.start();
+                    hideThumbnail();
+                } else if (isPosterFramePending) {
+                    // The frame is rendered by the seek on most devices, without a rendering
+                    // start info
+                    fadeOutPosterThumbnail();
+                }
+                positionTracker.onPlaybackStateChanged();
+                if (onSeekCompletedListener != null) {
+                    onSeekCompletedListener.onSeekCompleted(positionMs, latencyMs);
+                }
+            }
         };
     }
 
@@ -246,14 +600,6 @@ public class FullscreenVideoView extends FrameLayout {
             if (controller != null) {
                 controller.updateFullScreenDrawable();
             }
-            // Update the layout params
-            if (surfaceView != null && fullscreenVideoMediaPlayer != null) {
-                surfaceView.updateLayoutParams(
-                        fullscreenVideoMediaPlayer.getVideoWidth(),
-                        fullscreenVideoMediaPlayer.getVideoHeight()
-                );
-            }
-
             switch (orientation) {
                 case PORTRAIT: {
                     if (fullscreenButton != null) {
@@ -261,6 +607,9 @@ public class FullscreenVideoView extends FrameLayout {
                     }
                     // Update the layout params for portrait
                     updateLayoutParamsForPortrait();
+                    if (surfaceView != null) {
+                        surfaceView.setFullscreen(false);
+                    }
                     break;
                 }
 
@@ -272,6 +621,9 @@ public class FullscreenVideoView extends FrameLayout {
                     requestFocus();
                     // Update the layout params for landscape
                     updateLayoutParamsForLandscape();
+                    if (surfaceView != null) {
+                        surfaceView.setFullscreen(true);
+                    }
                     break;
                 }
             }
@@ -288,6 +640,146 @@ public class FullscreenVideoView extends FrameLayout {
         return this;
     }
 
+    /**
+     * Plays a list of videos back to back. The next video is prepared in a second media player
+     * while the current one plays and starts as soon as the current one completes.
+     *
+     * @param videoPaths the URLs or the file paths of the videos
+     * @return the fullscreenVideoView instance
+     * @see #skipToNext()
+     * @see #skipToPrevious()
+     */
+    public FullscreenVideoView playlist(List<String> videoPaths) {
+        playlistQueue.setVideoPaths(videoPaths);
+        if (!playlistQueue.isEmpty()) {
+            setupMediaPlayer(playlistQueue.getVideoPath(0));
+        }
+        return this;
+    }
+
+    /**
+     * Caches the played parts of the video on the disk, so that replaying it or coming back to it
+     * does not download it again. Applies to videos loaded from an URL and must be called before
+     * {@link #videoUrl(String)}.
+     *
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView enableVideoCache() {
+        return enableVideoCache(VideoCacheProxy.DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    /**
+     * Caches the played parts of the video on the disk, so that replaying it or coming back to it
+     * does not download it again. Applies to videos loaded from an URL and must be called before
+     * {@link #videoUrl(String)}.
+     *
+     * @param maxSizeBytes the maximum size of the cache shared by all videos in bytes
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView enableVideoCache(long maxSizeBytes) {
+        this.isVideoCacheEnabled = true;
+        this.videoCacheMaxSizeBytes = maxSizeBytes;
+        return this;
+    }
+
+    /**
+     * Defers the preparation of the video until the view is attached and the given part of it
+     * is visible on the screen, so that views which are off screen, for example in a long
+     * layout, don't allocate a decoder or start loading the video. Must be called before
+     * {@link #videoUrl(String)} or {@link #videoFile(File)}.
+     *
+     * @param visibleFraction the visible fraction of the view area, between 0 and 1
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView prepareWhenVisible(float visibleFraction) {
+        return prepareWhenVisible(visibleFraction, false);
+    }
+
+    /**
+     * Defers the preparation of the video until the view is attached and the given part of it
+     * is visible on the screen, so that views which are off screen, for example in a long
+     * layout, don't allocate a decoder or start loading the video. Must be called before
+     * {@link #videoUrl(String)} or {@link #videoFile(File)}.
+     *
+     * @param visibleFraction   the visible fraction of the view area, between 0 and 1
+     * @param releaseWhenHidden true to also reset the media player when the view is scrolled
+     *                          fully off screen and prepare it again, from the same position,
+     *                          when it's visible again
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView prepareWhenVisible(float visibleFraction,
+                                                  boolean releaseWhenHidden) {
+        if (visibilityTracker != null) {
+            visibilityTracker.stop();
+        }
+
+        this.isReleasedWhenHidden = releaseWhenHidden;
+        visibilityTracker = new VisibilityTracker(
+                this,
+                visibleFraction,
+                new VisibilityTracker.Listener() {
+                    @Override
+                    public void onVisible() {
+                        setupDeferredMediaPlayer();
+                    }
+
+                    @Override
+                    public void onHidden() {
+                        if (isReleasedWhenHidden) {
+                            releaseHiddenMediaPlayer();
+                        }
+                    }
+                }
+        );
+        if (ViewCompat.isAttachedToWindow(this)) {
+            visibilityTracker.start();
+        }
+        return this;
+    }
+
+    /**
+     * Shows a preview of the frame at the dragged position above the SeekBar. The frames are
+     * extracted from the video on a background thread. Must be called before
+     * {@link #videoUrl(String)} or {@link #videoFile(File)}.
+     *
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView enableSeekPreview() {
+        this.isSeekPreviewEnabled = true;
+        return this;
+    }
+
+    /**
+     * Saves the playback position of each video and resumes the video from it when it's loaded
+     * again, also after the app is restarted. The positions are kept in a memory-mapped file
+     * shared by all views and saved periodically while the video plays. A position set with
+     * {@link #setSeekToTimeMillis(int)} goes before the saved one. Must be called before
+     * {@link #videoUrl(String)} or {@link #videoFile(File)}.
+     *
+     * @return the fullscreenVideoView instance
+     * @see ResumePositionStore
+     */
+    public FullscreenVideoView enableResumePositions() {
+        this.isResumePositionEnabled = true;
+        return this;
+    }
+
+    /**
+     * Runs the media player commands, like setting the data source, seeking and releasing,
+     * in order on a dedicated background thread instead of the main thread. These commands
+     * block on the media server and can take hundreds of milliseconds. Must be called before
+     * {@link #videoUrl(String)} or {@link #videoFile(File)}.
+     *
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView enableBackgroundPlayerCommands() {
+        this.isBackgroundPlayerCommandsEnabled = true;
+        if (fullscreenVideoMediaPlayer != null) {
+            fullscreenVideoMediaPlayer.enableBackgroundCommands();
+        }
+        return this;
+    }
+
     /**
      * When called the video will start automatically when it's loaded and ready to be played.
      *
@@ -594,20 +1086,125 @@ public class FullscreenVideoView extends FrameLayout {
     }
 
     /**
-     * Adds a thumbnail to the video.
+     * Adds a thumbnail to the video. The thumbnail is decoded in the background to the size of
+     * the view and shown once it's ready.
      *
      * @param thumbnailResId the thumbnail image resource id
      * @return the fullscreenVideoView instance
      */
-    public FullscreenVideoView thumbnail(int thumbnailResId) {
-        if (thumbnailImageView != null) {
-            Bitmap thumbnail = BitmapScaler.scaleImage(getResources(), thumbnailResId);
-            thumbnailImageView.setImageBitmap(thumbnail);
-            args.thumbnailResId = thumbnailResId;
+    public FullscreenVideoView thumbnail(@DrawableRes int thumbnailResId) {
+        args.thumbnailResId = thumbnailResId;
+        args.thumbnailUrl = null;
+        args.thumbnailFile = null;
+        if (thumbnailLoader != null) {
+            thumbnailLoader.load(thumbnailResId);
+        }
+        return this;
+    }
+
+    /**
+     * Shows the real frame of the video at a poster timestamp instead of a black surface until
+     * the video is started. The prepared video is seeked to the timestamp while paused and
+     * the thumbnail, if any, is cross-faded to the rendered frame. A resume or seek position
+     * is shown instead of the timestamp, and the playback starts from the shown frame without
+     * any further preparation.
+     *
+     * @param posterTimeMillis the poster timestamp in milliseconds
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView firstFramePoster(int posterTimeMillis) {
+        this.posterTimeMillis = Math.max(0, posterTimeMillis);
+        return this;
+    }
+
+    /**
+     * Changes how the video is scaled to the bounds of the view. The video is fitted in
+     * the bounds by default.
+     *
+     * @param scaleMode the scale mode
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView videoScaleMode(VideoScaleMode scaleMode) {
+        videoScaleMode = scaleMode;
+        if (surfaceView != null) {
+            surfaceView.setScaleMode(scaleMode);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a thumbnail to the video from an URL. The thumbnail is downloaded and decoded in
+     * the background and cached in memory and on the disk. Changing the video or detaching
+     * the view cancels the loading.
+     *
+     * @param thumbnailUrl the URL of the thumbnail image
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView thumbnailUrl(@NonNull String thumbnailUrl) {
+        args.thumbnailResId = -1;
+        args.thumbnailUrl = thumbnailUrl;
+        args.thumbnailFile = null;
+        if (thumbnailLoader != null) {
+            thumbnailLoader.load(thumbnailUrl);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a thumbnail to the video from an image file. The thumbnail is decoded in
+     * the background to the size of the view and shown once it's ready.
+     *
+     * @param thumbnailFile the thumbnail image file
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView thumbnailFile(@NonNull File thumbnailFile) {
+        args.thumbnailResId = -1;
+        args.thumbnailUrl = null;
+        args.thumbnailFile = thumbnailFile;
+        if (thumbnailLoader != null) {
+            thumbnailLoader.load(thumbnailFile);
         }
         return this;
     }
 
+    /**
+     * Shows the seek previews from a WebVTT thumbnail track, which maps the time ranges of
+     * the video to regions of sprite sheet images. Only the regions of the dragged positions are
+     * decoded. The track applies to the loaded video and is dropped when the video is changed.
+     *
+     * @param thumbnailTrackUrl the URL of the WebVTT thumbnail track
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView thumbnailTrackUrl(@NonNull String thumbnailTrackUrl) {
+        setThumbnailTrack(thumbnailTrackUrl);
+        return this;
+    }
+
+    /**
+     * Shows the seek previews from a WebVTT thumbnail track file, which maps the time ranges of
+     * the video to regions of sprite sheet images. Relative image paths are resolved against
+     * the directory of the track. The track applies to the loaded video and is dropped when
+     * the video is changed.
+     *
+     * @param thumbnailTrackFile the WebVTT thumbnail track file
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView thumbnailTrackFile(@NonNull File thumbnailTrackFile) {
+        setThumbnailTrack(thumbnailTrackFile.getPath());
+        return this;
+    }
+
+    private void setThumbnailTrack(String trackSource) {
+        thumbnailTrackSource = trackSource;
+        if (seekPreviewImageView != null) {
+            setSeekPreviewProvider(new ThumbnailTrackLoader(
+                    getContext(),
+                    trackSource,
+                    seekPreviewImageView.getLayoutParams().width
+            ));
+        }
+    }
+
     /**
      * Hides all progress related views.
      *
@@ -646,88 +1243,212 @@ public class FullscreenVideoView extends FrameLayout {
     }
 
     /**
-     * Adds a listener which is called when the video playback is completed.
+     * Adds a listener for the buffer health, which reports how much of the video is buffered
+     * ahead of the playback position and when the playback stalls because of buffering.
      *
-     * @param listener the listener for video completion
+     * @param listener the listener for the buffer health
      * @return the fullscreenVideoView instance
      */
-    public FullscreenVideoView addOnVideoCompletedListener(OnVideoCompletedListener listener) {
-        this.onVideoCompletedListener = listener;
+    public FullscreenVideoView addOnBufferHealthListener(OnBufferHealthListener listener) {
+        bufferHealthTracker.setOnBufferHealthListener(listener);
         return this;
     }
 
     /**
-     * Adds a listener which is called when the video is prepared.
+     * Sets a sink for the playback metrics, which receives the startup time, the time to
+     * the first frame, the stalls, the seek latencies and the errors of each video when
+     * the video is changed or the view is detached.
      *
-     * @param listener the listener for the video preparation
+     * @param sink the sink for the playback metrics
      * @return the fullscreenVideoView instance
      */
-    public FullscreenVideoView addOnVideoPreparedListener(OnVideoPreparedListener listener) {
-        this.onVideoPreparedListener = listener;
+    public FullscreenVideoView playbackMetricsSink(PlaybackMetricsSink sink) {
+        playbackMetrics.setSink(sink);
         return this;
     }
 
     /**
-     * Adds a listener for media controller events.
+     * Sets a deadline for the preparation of the video. On some devices and servers
+     * the preparation never completes, so it's cancelled when the deadline elapses and
+     * {@link MediaPlayerErrorType#PREPARE_TIMEOUT} is reported, unless the retry policy
+     * recovers from it. The prepare times are recorded in the playback metrics.
      *
+     * @param timeoutMs the deadline in milliseconds or 0 to wait without a deadline
      * @return the fullscreenVideoView instance
      */
-    public FullscreenVideoView mediaControllerListener(
-            MediaControllerListener mediaControllerListener
-    ) {
-        if (controller != null) {
-            controller.setOnMediaControllerListener(mediaControllerListener);
+    public FullscreenVideoView prepareTimeout(long timeoutMs) {
+        prepareTimeoutMs = timeoutMs;
+        if (fullscreenVideoMediaPlayer != null) {
+            fullscreenVideoMediaPlayer.setPrepareTimeout(timeoutMs);
         }
         return this;
     }
 
     /**
-     * Seeks to a specified point of the video.
+     * Sets a policy for recovering from transient media errors, such as network I/O errors and
+     * timeouts. The video is prepared again with an exponential backoff and resumed from the last
+     * known position, before the error is reported to the OnErrorListener. The fallback URLs of
+     * the policy are tried in order for the video set up after this call.
      *
-     * @param timeMillis the value for the seek position
+     * @param retryPolicy the retry policy
      * @return the fullscreenVideoView instance
      */
-    public FullscreenVideoView setSeekToTimeMillis(int timeMillis) {
-        this.seekToTimeMillis = timeMillis;
-        args.seekToTimeMillis = timeMillis;
+    public FullscreenVideoView retryPolicy(RetryPolicy retryPolicy) {
+        errorHandler.setRetryPolicy(retryPolicy);
         return this;
     }
 
     /**
-     * Mutes the video player.
+     * Gets the playback metrics of the current video. Use {@link PlaybackMetrics#snapshot()}
+     * to read them.
+     * <p>
+     * This method is not part of the building pattern and because of that it's not returning
+     * an instance of FullscreenVideoView.
+     *
+     * @return the playback metrics
+     */
+    public PlaybackMetrics getPlaybackMetrics() {
+        return playbackMetrics;
+    }
+
+    /**
+     * Adds a listener which is called when a seek is completed. It reports the latency of each
+     * seek from issuing it to the media player until its completion.
      *
+     * @param listener the listener for seek completion
      * @return the fullscreenVideoView instance
      */
-    public FullscreenVideoView mute() {
-        fullscreenVideoMediaPlayer.setVolume(0, 0);
+    public FullscreenVideoView addOnSeekCompletedListener(OnSeekCompletedListener listener) {
+        this.onSeekCompletedListener = listener;
         return this;
     }
 
     /**
-     * Unmutes the video player.
+     * Adds a listener for the playback position, which is called on every display frame while
+     * the video plays. The position is interpolated from the media clock, so it advances smoothly
+     * between the frames without querying the media player.
      *
+     * @param listener the listener for the playback position
      * @return the fullscreenVideoView instance
      */
-    public FullscreenVideoView unmute() {
-        fullscreenVideoMediaPlayer.setVolume(1, 1);
+    public FullscreenVideoView addOnPlaybackPositionListener(OnPlaybackPositionListener listener) {
+        positionTracker.addListener(listener);
         return this;
     }
 
     /**
-     * Pauses the video at runtime.
+     * Removes a listener added with {@link #addOnPlaybackPositionListener}.
      * <p>
      * This method is not part of the building pattern and because of that it's not returning
      * an instance of FullscreenVideoView.
+     *
+     * @param listener the listener for the playback position
      */
-    public void pause() {
-        if (fullscreenVideoMediaPlayer != null) {
-            fullscreenVideoMediaPlayer.pause();
-        }
+    public void removeOnPlaybackPositionListener(OnPlaybackPositionListener listener) {
+        positionTracker.removeListener(listener);
     }
 
     /**
-     * Plays the video at runtime.
-     * <p>
+     * Adds a listener which is called when another item of the playlist starts playing.
+     *
+     * @param listener the listener for the playlist item changes
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView addOnPlaylistItemChangedListener(
+            OnPlaylistItemChangedListener listener
+    ) {
+        this.onPlaylistItemChangedListener = listener;
+        return this;
+    }
+
+    /**
+     * Adds a listener which is called when the video playback is completed.
+     *
+     * @param listener the listener for video completion
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView addOnVideoCompletedListener(OnVideoCompletedListener listener) {
+        this.onVideoCompletedListener = listener;
+        return this;
+    }
+
+    /**
+     * Adds a listener which is called when the video is prepared.
+     *
+     * @param listener the listener for the video preparation
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView addOnVideoPreparedListener(OnVideoPreparedListener listener) {
+        this.onVideoPreparedListener = listener;
+        return this;
+    }
+
+    /**
+     * Adds a listener for media controller events.
+     *
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView mediaControllerListener(
+            MediaControllerListener mediaControllerListener
+    ) {
+        this.mediaControllerListener = mediaControllerListener;
+        return this;
+    }
+
+    private void recordEvent(PlaybackEventType type, long value) {
+        long positionMs = fullscreenVideoMediaPlayer != null
+                ? fullscreenVideoMediaPlayer.getStateMirror().getCurrentPosition()
+                : 0;
+        PlaybackEventPipeline.getInstance().record(type, positionMs, value);
+    }
+
+    /**
+     * Seeks to a specified point of the video.
+     *
+     * @param timeMillis the value for the seek position
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView setSeekToTimeMillis(int timeMillis) {
+        this.seekToTimeMillis = timeMillis;
+        args.seekToTimeMillis = timeMillis;
+        return this;
+    }
+
+    /**
+     * Mutes the video player.
+     *
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView mute() {
+        fullscreenVideoMediaPlayer.setVolume(0, 0);
+        return this;
+    }
+
+    /**
+     * Unmutes the video player.
+     *
+     * @return the fullscreenVideoView instance
+     */
+    public FullscreenVideoView unmute() {
+        fullscreenVideoMediaPlayer.setVolume(1, 1);
+        return this;
+    }
+
+    /**
+     * Pauses the video at runtime.
+     * <p>
+     * This method is not part of the building pattern and because of that it's not returning
+     * an instance of FullscreenVideoView.
+     */
+    public void pause() {
+        if (fullscreenVideoMediaPlayer != null) {
+            fullscreenVideoMediaPlayer.pause();
+        }
+    }
+
+    /**
+     * Plays the video at runtime.
+     * <p>
      * This method is not part of the building pattern and because of that it's not returning
      * an instance of FullscreenVideoView.
      */
@@ -739,13 +1460,64 @@ public class FullscreenVideoView extends FrameLayout {
     }
 
     /**
-     * Gets the current position of the MediaPlayer in milliseconds.
+     * Plays the next item of the playlist. If the item is already prepared it starts
+     * immediately, otherwise it starts as soon as it's prepared.
+     * <p>
+     * This method is not part of the building pattern and because of that it's not returning
+     * an instance of FullscreenVideoView.
+     */
+    public void skipToNext() {
+        if (!playlistQueue.hasNext()) {
+            return;
+        }
+
+        PlaylistPlayer nextPlayer = playlistQueue.getNextPlayer();
+        if (nextPlayer == null) {
+            nextPlayer = preparePlaylistPlayer(playlistQueue.getIndex() + 1);
+            playlistQueue.setNextPlayer(nextPlayer);
+        }
+        startPlaylistPlayer(nextPlayer);
+    }
+
+    /**
+     * Plays the previous item of the playlist from its beginning. The previous item stays
+     * prepared after it's played, so going back to it starts immediately.
+     * <p>
+     * This method is not part of the building pattern and because of that it's not returning
+     * an instance of FullscreenVideoView.
+     */
+    public void skipToPrevious() {
+        if (!playlistQueue.hasPrevious()) {
+            return;
+        }
+
+        PlaylistPlayer previousPlayer = playlistQueue.getPreviousPlayer();
+        if (previousPlayer == null) {
+            previousPlayer = preparePlaylistPlayer(playlistQueue.getIndex() - 1);
+            playlistQueue.setPreviousPlayer(previousPlayer);
+        }
+        startPlaylistPlayer(previousPlayer);
+    }
+
+    /**
+     * Gets the index of the playing item of the playlist.
+     *
+     * @return the index of the playing item or -1 if there is no playlist
+     */
+    public int getPlaylistIndex() {
+        return playlistQueue.isEmpty() ? -1 : playlistQueue.getIndex();
+    }
+
+    /**
+     * Gets the current position of the MediaPlayer in milliseconds. The position is read from
+     * a mirror of the MediaPlayer state, so calling this method does not cross into
+     * the media server.
      *
      * @return the current position value in milliseconds or -1 if the MediaPlayer is null.
      */
     public int getCurrentPosition() {
         if (fullscreenVideoMediaPlayer != null) {
-            return fullscreenVideoMediaPlayer.getCurrentPosition();
+            return fullscreenVideoMediaPlayer.getStateMirror().getCurrentPosition();
         } else {
             return -1;
         }
@@ -760,6 +1532,7 @@ public class FullscreenVideoView extends FrameLayout {
      * @param url The new video URL.
      */
     public void changeUrl(@NonNull String url) {
+        playlistQueue.clear();
         changeSource(url);
     }
 
@@ -772,6 +1545,7 @@ public class FullscreenVideoView extends FrameLayout {
      * @param videoFile The new video file.
      */
     public void changeVideoFile(@NonNull File videoFile) {
+        playlistQueue.clear();
         changeSource(videoFile.getPath());
     }
 
@@ -803,8 +1577,31 @@ public class FullscreenVideoView extends FrameLayout {
         orientationManager.handleConfigurationChange(newConfig);
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (visibilityTracker != null) {
+            visibilityTracker.start();
+        }
+
+        String videoPath = detachedSource.take();
+        if (videoPath != null && fullscreenVideoMediaPlayer == null) {
+            // The player and the views were torn down when the view was detached
+            setupAgain(videoPath);
+        }
+    }
+
     @Override
     protected void onDetachedFromWindow() {
+        if (visibilityTracker != null) {
+            visibilityTracker.stop();
+        }
+        // Keep the video and its position, the view may be attached again
+        detachedSource.onTornDown(
+                deferredVideoPath != null ? deferredVideoPath : currentVideoPath);
+        if (isMediaPlayerPrepared && fullscreenVideoMediaPlayer != null) {
+            restorePositionMs = fullscreenVideoMediaPlayer.getStateMirror().getCurrentPosition();
+        }
         handleOnDetach();
         super.onDetachedFromWindow();
     }
@@ -816,6 +1613,11 @@ public class FullscreenVideoView extends FrameLayout {
     }
 
     private void handleOnDetach() {
+        saveResumePosition();
+        removeCallbacks(saveResumePositionRunnable);
+        playbackMetrics.report();
+        PlaybackEventPipeline.getInstance().flush();
+
         if (controller != null) {
             controller.onDetach();
             controller = null;
@@ -826,10 +1628,15 @@ public class FullscreenVideoView extends FrameLayout {
             orientationManager = null;
         }
 
+        playlistQueue.releasePlayers();
         if (fullscreenVideoMediaPlayer != null) {
-            fullscreenVideoMediaPlayer.onDetach();
+            positionTracker.setMediaPlayer(null);
+            MediaPlayerPool.getInstance().release(fullscreenVideoMediaPlayer);
             fullscreenVideoMediaPlayer = null;
         }
+        isMediaPlayerPrepared = false;
+        isMediaPlayerReleasedWhenHidden = false;
+        deferredVideoPath = null;
 
         if (surfaceHolder != null) {
             surfaceHolder.removeCallback(surfaceHolderCallback);
@@ -843,6 +1650,17 @@ public class FullscreenVideoView extends FrameLayout {
             surfaceView = null;
         }
 
+        if (thumbnailLoader != null) {
+            thumbnailLoader.clear();
+            thumbnailLoader = null;
+        }
+
+        if (seekPreviewProvider != null) {
+            seekPreviewProvider.release();
+            seekPreviewProvider = null;
+        }
+        seekPreviewImageView = null;
+
         progressBar = null;
         surfaceHolderCallback = null;
         attrs = null;
@@ -860,12 +1678,302 @@ public class FullscreenVideoView extends FrameLayout {
     }
 
     public void setupMediaPlayer(String videoPath) {
+        if (detachedSource.isTornDown()) {
+            // A recycled view is bound to another video, set it up once it's attached again
+            if (detachedSource.replace(videoPath)) {
+                restorePositionMs = -1;
+            }
+            return;
+        }
+
+        if (isPreparationHeld
+                || (visibilityTracker != null && !visibilityTracker.isVisible())) {
+            // Set it up once the view becomes visible
+            deferredVideoPath = videoPath;
+            return;
+        }
+
+        deferredVideoPath = null;
+        if (!videoPath.equals(currentVideoPath)) {
+            // The position of the previous video does not apply to this one
+            restorePositionMs = -1;
+        }
+        currentVideoPath = videoPath;
+        errorHandler.onSourceChanged(videoPath);
+        isRecoveryPending = false;
+        restoreResumePosition(videoPath);
+        prefetchStartPosition(videoPath);
         showProgress();
+        bufferHealthTracker.reset();
+        playbackMetrics.report();
+        playbackMetrics.onSetup();
+
+        if (fullscreenVideoMediaPlayer != null) {
+            fullscreenVideoMediaPlayer.init(getDataSource(videoPath));
+            fullscreenVideoMediaPlayer.prepareAsync();
+        }
+        updateSeekPreview(videoPath);
+    }
 
+    private void setupDeferredMediaPlayer() {
+        String videoPath = deferredVideoPath;
+        if (videoPath == null || isPreparationHeld) {
+            return;
+        }
+
+        if (!isMediaPlayerReleasedWhenHidden) {
+            setupMediaPlayer(videoPath);
+            return;
+        }
+
+        // Prepare the reset media player again, the position is restored when it's prepared
+        isMediaPlayerReleasedWhenHidden = false;
+        deferredVideoPath = null;
+        showProgress();
+        bufferHealthTracker.reset();
+        playbackMetrics.report();
+        playbackMetrics.onSetup();
+        boolean isVideoChanged = !videoPath.equals(currentVideoPath);
+        if (isVideoChanged) {
+            // The video was changed while the view was hidden, its position does not apply
+            restorePositionMs = -1;
+        }
+        prefetchStartPosition(videoPath);
         if (fullscreenVideoMediaPlayer != null) {
-            fullscreenVideoMediaPlayer.init(videoPath);
+            fullscreenVideoMediaPlayer.changeDataSource(getDataSource(videoPath), surfaceHolder);
             fullscreenVideoMediaPlayer.prepareAsync();
         }
+        if (isVideoChanged) {
+            currentVideoPath = videoPath;
+            errorHandler.onSourceChanged(videoPath);
+            updateSeekPreview(videoPath);
+        }
+    }
+
+    /**
+     * Holds the preparation of the videos until it's allowed again. A held video is set up when
+     * the preparation is allowed.
+     *
+     * @param isHeld true to hold the preparation, false to allow it
+     */
+    void setPreparationHeld(boolean isHeld) {
+        isPreparationHeld = isHeld;
+        if (!isHeld) {
+            setupDeferredMediaPlayer();
+        }
+    }
+
+    /**
+     * Resets the media player and holds the preparation until it's allowed again, when
+     * the video is prepared again from the same position.
+     */
+    void releaseUntilAllowed() {
+        isPreparationHeld = true;
+        releaseHiddenMediaPlayer();
+    }
+
+    /**
+     * Plays or pauses the video. A video which is not prepared yet starts once it's prepared.
+     *
+     * @param isRequested true to play the video, false to pause it
+     */
+    void setPlayRequested(boolean isRequested) {
+        isPlayRequested = isRequested;
+        if (!isMediaPlayerPrepared || fullscreenVideoMediaPlayer == null) {
+            return;
+        }
+
+        boolean isPlaying = fullscreenVideoMediaPlayer.getStateMirror().isPlaying();
+        if (isRequested && !isPlaying) {
+            play();
+        } else if (!isRequested && isPlaying) {
+            pause();
+        }
+    }
+
+    /**
+     * Resets the media player of a view which was scrolled off screen or evicted from
+     * the decoder budget, which releases its decoder and stops loading the video. The video is
+     * set up again from the same position when the view becomes visible or it's played.
+     *
+     * @return true if the media player was reset, false if there's nothing to release
+     */
+    private boolean releaseHiddenMediaPlayer() {
+        if (fullscreenVideoMediaPlayer == null || currentVideoPath == null
+                || deferredVideoPath != null) {
+            return false;
+        }
+
+        saveResumePosition();
+        if (isMediaPlayerPrepared) {
+            // Continue from the same position
+            restorePositionMs = fullscreenVideoMediaPlayer.getStateMirror().getCurrentPosition();
+        }
+
+        playlistQueue.releasePlayers();
+        fullscreenVideoMediaPlayer.reset();
+        isMediaPlayerPrepared = false;
+        isMediaPlayerReleasedWhenHidden = true;
+        deferredVideoPath = currentVideoPath;
+        hideProgressBar();
+        if (controller != null) {
+            controller.hide();
+            controller.updatePausePlay();
+        }
+        isPosterFramePending = false;
+        showThumbnail();
+        positionTracker.onPlaybackStateChanged();
+        return true;
+    }
+
+    /**
+     * Prepares the current video again after a transient error, from the same or from
+     * a fallback URL. The position is restored when it's prepared.
+     *
+     * @param fallbackUrl the fallback URL or null to use the same URL
+     */
+    private void recoverMediaPlayer(@Nullable String fallbackUrl) {
+        String videoPath = fallbackUrl != null ? fallbackUrl : currentVideoPath;
+        if (fullscreenVideoMediaPlayer == null || videoPath == null
+                || deferredVideoPath != null) {
+            return;
+        }
+
+        isRecoveryPending = true;
+        playbackMetrics.onRecoveryAttempt();
+        bufferHealthTracker.reset();
+        prefetchStartPosition(videoPath);
+        fullscreenVideoMediaPlayer.changeDataSource(getDataSource(videoPath), surfaceHolder);
+        fullscreenVideoMediaPlayer.prepareAsync();
+        positionTracker.onPlaybackStateChanged();
+    }
+
+    private void restoreResumePosition(String videoPath) {
+        if (!isResumePositionEnabled || args.seekToTimeMillis != -1) {
+            return;
+        }
+
+        int positionMs = ResumePositionStore.getInstance(getContext()).getPosition(videoPath);
+        seekToTimeMillis = Math.max(0, positionMs);
+    }
+
+    private void saveResumePosition() {
+        if (!isResumePositionEnabled || !isMediaPlayerPrepared || currentVideoPath == null
+                || fullscreenVideoMediaPlayer == null) {
+            return;
+        }
+
+        ResumePositionStore.getInstance(getContext()).setPosition(
+                currentVideoPath,
+                fullscreenVideoMediaPlayer.getStateMirror().getCurrentPosition()
+        );
+    }
+
+    /**
+     * Saves the position when the playback is paused and periodically while the video plays.
+     */
+    private void updateResumePositionSaving() {
+        if (!isResumePositionEnabled) {
+            return;
+        }
+
+        removeCallbacks(saveResumePositionRunnable);
+        saveResumePosition();
+        if (fullscreenVideoMediaPlayer != null
+                && fullscreenVideoMediaPlayer.getStateMirror().isPlaying()) {
+            postDelayed(saveResumePositionRunnable, Constants.RESUME_POSITION_SAVE_INTERVAL);
+        }
+    }
+
+    /**
+     * Replaces the seek preview provider with one for a new video, dropping the previews of
+     * the previous one. A thumbnail track set for the video goes before the extracted frames.
+     *
+     * @param videoPath the video URL or file path
+     */
+    private void updateSeekPreview(String videoPath) {
+        if (seekPreviewImageView == null) {
+            return;
+        }
+
+        int previewWidth = seekPreviewImageView.getLayoutParams().width;
+        if (thumbnailTrackSource != null) {
+            // The thumbnail track was set for this video
+            if (seekPreviewProvider == null) {
+                setSeekPreviewProvider(new ThumbnailTrackLoader(
+                        getContext(),
+                        thumbnailTrackSource,
+                        previewWidth
+                ));
+            }
+        } else if (isSeekPreviewEnabled) {
+            setSeekPreviewProvider(new FramePreviewLoader(getDataSource(videoPath), previewWidth));
+        } else if (seekPreviewProvider != null) {
+            setSeekPreviewProvider(null);
+        }
+    }
+
+    private void setSeekPreviewProvider(@Nullable SeekPreviewProvider provider) {
+        if (seekPreviewProvider != null) {
+            seekPreviewProvider.release();
+        }
+
+        seekPreviewProvider = provider;
+        if (controller != null) {
+            controller.setSeekPreview(provider != null ? seekPreviewImageView : null, provider);
+        }
+    }
+
+    /**
+     * Gets the data source for the media player, which is the cache proxy URL when the video
+     * cache is enabled.
+     *
+     * @param videoPath the video URL or file path
+     * @return the path which has to be passed to the media player
+     */
+    private String getDataSource(String videoPath) {
+        if (!isVideoCacheEnabled || !FullscreenVideoMediaPlayer.isRemote(videoPath)) {
+            return videoPath;
+        }
+
+        return VideoCacheProxy.getInstance(getContext(), videoCacheMaxSizeBytes)
+                .getProxyUrl(videoPath);
+    }
+
+    /**
+     * Prefetches the part of a cached video at the start position, while the media player is
+     * prepared from the beginning of the file.
+     */
+    private void prefetchStartPosition(String videoPath) {
+        int startPositionMs = getStartPositionMs();
+        if (isVideoCacheEnabled && FullscreenVideoMediaPlayer.isRemote(videoPath)
+                && startPositionMs > 0) {
+            VideoCacheProxy.getInstance(getContext(), videoCacheMaxSizeBytes)
+                    .prefetch(videoPath, startPositionMs);
+        }
+    }
+
+    /**
+     * Gets the position the prepared video starts from - the position it was released at or
+     * the seek or resume position.
+     */
+    private int getStartPositionMs() {
+        return restorePositionMs != -1 ? restorePositionMs : seekToTimeMillis;
+    }
+
+    /**
+     * Saves the duration of a cached video, which is needed to prefetch its start position
+     * the next time.
+     */
+    private void saveVideoDuration() {
+        if (isVideoCacheEnabled && currentVideoPath != null
+                && FullscreenVideoMediaPlayer.isRemote(currentVideoPath)
+                && fullscreenVideoMediaPlayer != null) {
+            VideoCacheProxy.getInstance(getContext(), videoCacheMaxSizeBytes).setDuration(
+                    currentVideoPath,
+                    fullscreenVideoMediaPlayer.getStateMirror().getDuration()
+            );
+        }
     }
 
     private void setupProgressBarColor() {
@@ -928,8 +2036,31 @@ public class FullscreenVideoView extends FrameLayout {
     }
 
     private void changeSource(String videoPath) {
+        // The thumbnail track belongs to the previous video
+        thumbnailTrackSource = null;
+        if (detachedSource.isTornDown()) {
+            detachedSource.replace(videoPath);
+            restorePositionMs = -1;
+            return;
+        }
+
+        if (canSwapSource()) {
+            swapSource(videoPath);
+            return;
+        }
+
         handleOnDetach();
+        restorePositionMs = -1;
+        setupAgain(videoPath);
+    }
 
+    /**
+     * Sets up the player and the views again after they were torn down by
+     * {@link #handleOnDetach()} and applies the arguments of the builder to them.
+     *
+     * @param videoPath the video URL or file path
+     */
+    private void setupAgain(String videoPath) {
         init(attrs);
 
         setupMediaPlayer(videoPath);
@@ -1028,5 +2159,248 @@ public class FullscreenVideoView extends FrameLayout {
         if (args.seekToTimeMillis != -1) {
             setSeekToTimeMillis(timeMillis);
         }
+
+        int thumbnailResId = args.thumbnailResId;
+        if (thumbnailResId != -1) {
+            thumbnail(thumbnailResId);
+        }
+
+        String thumbnailUrl = args.thumbnailUrl;
+        if (thumbnailUrl != null) {
+            thumbnailUrl(thumbnailUrl);
+        }
+
+        File thumbnailFile = args.thumbnailFile;
+        if (thumbnailFile != null) {
+            thumbnailFile(thumbnailFile);
+        }
+    }
+
+    /**
+     * Checks if the source can be changed by reusing the media player and the views.
+     * They are released when the view is detached, in which case it has to be set up again.
+     *
+     * @return true if the media player, the surface and the controller are available
+     */
+    private boolean canSwapSource() {
+        return fullscreenVideoMediaPlayer != null
+                && surfaceHolder != null
+                && surfaceView != null
+                && controller != null;
+    }
+
+    /**
+     * Changes the source without inflating the layout again. The media player is reset and
+     * prepared with the new source, while the surface, the controller and its drawables and
+     * the other arguments are kept.
+     *
+     * @param videoPath the video URL or file path
+     */
+    private void swapSource(String videoPath) {
+        saveResumePosition();
+        currentVideoPath = videoPath;
+        errorHandler.onSourceChanged(videoPath);
+        isRecoveryPending = false;
+        isStartAfterSeekPending = false;
+        // The position of the previous video does not apply to the new one
+        seekToTimeMillis = args.seekToTimeMillis != -1 ? args.seekToTimeMillis : 0;
+        restorePositionMs = -1;
+        restoreResumePosition(videoPath);
+        prefetchStartPosition(videoPath);
+        isMediaPlayerPrepared = false;
+        showProgress();
+        bufferHealthTracker.reset();
+        playbackMetrics.report();
+        playbackMetrics.onSetup();
+
+        if (controller != null) {
+            controller.onSourceChanged();
+        }
+
+        // The thumbnail of the previous source does not apply to the new one
+        if (thumbnailLoader != null) {
+            thumbnailLoader.clear();
+        }
+        isPosterFramePending = false;
+        showThumbnail();
+
+        fullscreenVideoMediaPlayer.changeDataSource(getDataSource(videoPath), surfaceHolder);
+        fullscreenVideoMediaPlayer.prepareAsync();
+        positionTracker.onPlaybackStateChanged();
+        updateSeekPreview(videoPath);
+    }
+
+    private PlaylistPlayer preparePlaylistPlayer(int index) {
+        return PlaylistPlayer.prepare(
+                index,
+                getDataSource(playlistQueue.getVideoPath(index)),
+                isBackgroundPlayerCommandsEnabled,
+                playlistPlayerCallback
+        );
+    }
+
+    private void prepareNextPlaylistPlayer() {
+        if (playlistQueue.hasNext() && playlistQueue.getNextPlayer() == null) {
+            playlistQueue.setNextPlayer(preparePlaylistPlayer(playlistQueue.getIndex() + 1));
+        }
+    }
+
+    /**
+     * Chains the prepared media player of the next item to the playing one, so that the media
+     * player starts it without a gap when the playback completes.
+     */
+    private void chainNextPlaylistPlayer() {
+        PlaylistPlayer nextPlayer = playlistQueue.getNextPlayer();
+        if (nextPlayer == null || !nextPlayer.isPrepared() || nextPlayer.isChained()
+                || fullscreenVideoMediaPlayer == null || !isMediaPlayerPrepared) {
+            return;
+        }
+
+        fullscreenVideoMediaPlayer.setNextPlayer(nextPlayer.player);
+        nextPlayer.onChained();
+    }
+
+    /**
+     * Removes a playlist player from the playing media player before it's returned to the pool,
+     * so that the playing one does not start a reset media player when its playback completes.
+     */
+    private void unchainPlaylistPlayer(PlaylistPlayer playlistPlayer) {
+        if (playlistPlayer.isChained() && fullscreenVideoMediaPlayer != null) {
+            fullscreenVideoMediaPlayer.setNextPlayer(null);
+        }
+    }
+
+    private void startPlaylistPlayer(PlaylistPlayer playlistPlayer) {
+        if (playlistPlayer.isPrepared()) {
+            switchToPlaylistPlayer(playlistPlayer, false);
+            return;
+        }
+
+        // Wait for the preparation without playing the current item
+        playlistPlayer.requestStart();
+        if (fullscreenVideoMediaPlayer != null
+                && fullscreenVideoMediaPlayer.getStateMirror().isPlaying()) {
+            fullscreenVideoMediaPlayer.pause();
+        }
+        showProgress();
+    }
+
+    private void onPlaylistItemCompleted() {
+        if (!playlistQueue.hasNext()) {
+            return;
+        }
+
+        PlaylistPlayer nextPlayer = playlistQueue.getNextPlayer();
+        if (nextPlayer != null && nextPlayer.isChained()) {
+            // The media player has already started the next item
+            switchToPlaylistPlayer(nextPlayer, true);
+        } else {
+            skipToNext();
+        }
+    }
+
+    /**
+     * Makes the media player of a playlist item the playing one. The previously playing media
+     * player is kept prepared for the opposite direction.
+     *
+     * @param playlistPlayer  the prepared playlist player
+     * @param isStartedAsNext true if the media player was started by the completed one
+     */
+    private void switchToPlaylistPlayer(PlaylistPlayer playlistPlayer, boolean isStartedAsNext) {
+        saveResumePosition();
+        boolean isForward = playlistPlayer.index > playlistQueue.getIndex();
+        playlistQueue.detachPlayer(playlistPlayer);
+
+        PlaylistPlayer currentPlayer = null;
+        FullscreenVideoMediaPlayer currentMediaPlayer = fullscreenVideoMediaPlayer;
+        if (currentMediaPlayer != null) {
+            if (isMediaPlayerPrepared) {
+                currentMediaPlayer.setNextPlayer(null);
+                if (currentMediaPlayer.getStateMirror().isPlaying()) {
+                    currentMediaPlayer.pause();
+                }
+                currentMediaPlayer.setDisplay(null);
+                currentPlayer = PlaylistPlayer.ofPrepared(
+                        playlistQueue.getIndex(),
+                        currentMediaPlayer,
+                        playlistPlayerCallback
+                );
+            } else {
+                MediaPlayerPool.getInstance().release(currentMediaPlayer);
+            }
+        }
+
+        if (isForward) {
+            playlistQueue.setPreviousPlayer(currentPlayer);
+        } else {
+            if (currentPlayer != null) {
+                // Play it from its beginning when it's reached again
+                currentPlayer.player.scheduleSeek(0, true);
+            }
+            playlistQueue.setNextPlayer(currentPlayer);
+        }
+        playlistQueue.setIndex(playlistPlayer.index);
+        currentVideoPath = playlistQueue.getVideoPath(playlistPlayer.index);
+        errorHandler.onSourceChanged(currentVideoPath);
+        isRecoveryPending = false;
+        restorePositionMs = -1;
+        // The media player of the next item was prepared in advance, so it has no startup time
+        playbackMetrics.report();
+        thumbnailTrackSource = null;
+        updateSeekPreview(playlistQueue.getVideoPath(playlistPlayer.index));
+
+        FullscreenVideoMediaPlayer player = playlistPlayer.player;
+        attachPlaylistPlayer(player);
+        if (isStartedAsNext) {
+            player.onStartedAsNext();
+        } else {
+            if (!isForward) {
+                player.scheduleSeek(0, true);
+            }
+            player.start();
+        }
+
+        if (controller != null) {
+            controller.updatePausePlay();
+        }
+        positionTracker.onPlaybackStateChanged();
+
+        if (isForward) {
+            prepareNextPlaylistPlayer();
+        } else {
+            chainNextPlaylistPlayer();
+        }
+        notifyPlaylistItemChanged();
+    }
+
+    private void attachPlaylistPlayer(FullscreenVideoMediaPlayer player) {
+        player.setListener(videoMediaPlayerListener);
+        if (args.disablePause) {
+            player.disablePause();
+        }
+        if (surfaceHolder != null && surfaceHolder.getSurface().isValid()) {
+            player.setDisplay(surfaceHolder);
+        }
+
+        fullscreenVideoMediaPlayer = player;
+        isMediaPlayerPrepared = true;
+        if (controller != null) {
+            controller.setVideoMediaPlayer(player);
+            controller.onSourceChanged();
+        }
+        positionTracker.setMediaPlayer(player);
+        bufferHealthTracker.reset();
+
+        if (surfaceView != null) {
+            surfaceView.setVideoSize(player.getVideoWidth(), player.getVideoHeight());
+        }
+        hideProgressBar();
+        hideThumbnail();
+    }
+
+    private void notifyPlaylistItemChanged() {
+        if (onPlaylistItemChangedListener != null) {
+            onPlaylistItemChangedListener.onPlaylistItemChanged(playlistQueue.getIndex());
+        }
     }
 }
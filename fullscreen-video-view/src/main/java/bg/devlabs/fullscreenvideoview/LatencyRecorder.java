@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import java.util.Arrays;
+
+import bg.devlabs.fullscreenvideoview.model.LatencyHistogram;
+
+/**
+ * Records latencies into fixed buckets. Recording only increments a counter, so it neither
+ * allocates nor keeps the samples.
+ */
+class LatencyRecorder {
+    private static final long[] UPPER_BOUNDS_MS =
+            {50, 100, 250, 500, 1000, 2000, 5000, 10000, 30000};
+
+    private final long[] counts = new long[UPPER_BOUNDS_MS.length + 1];
+    private long sumMs;
+    private long maxMs;
+    private boolean isEmpty = true;
+
+    void record(long latencyMs) {
+        long latency = Math.max(0, latencyMs);
+        int bucket = 0;
+        while (bucket < UPPER_BOUNDS_MS.length && latency > UPPER_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+
+        counts[bucket]++;
+        sumMs += latency;
+        maxMs = Math.max(maxMs, latency);
+        isEmpty = false;
+    }
+
+    boolean isEmpty() {
+        return isEmpty;
+    }
+
+    LatencyHistogram snapshot() {
+        return new LatencyHistogram(UPPER_BOUNDS_MS, counts, sumMs, maxMs);
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        sumMs = 0;
+        maxMs = 0;
+        isEmpty = true;
+    }
+}
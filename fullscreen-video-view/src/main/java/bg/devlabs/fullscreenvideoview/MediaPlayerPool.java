@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+
+/**
+ * A process-wide pool of media players shared by all FullscreenVideoView instances.
+ * <p>
+ * A view borrows a media player from the pool when it's set up and returns it when it's
+ * detached. The returned players are reset instead of released, so the next view can reuse them
+ * without creating a new native player. Players which stay idle for longer than the idle timeout
+ * are released. The pool must be used on the main thread.
+ */
+@SuppressWarnings("unused")
+public class MediaPlayerPool {
+    public static final int DEFAULT_MAX_SIZE = 2;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 30000L;
+
+    private static MediaPlayerPool instance;
+
+    private final ArrayDeque<IdlePlayer> idlePlayers = new ArrayDeque<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable evictRunnable = new Runnable() {
+        @Override
+        public void run() {
+            evictIdlePlayers();
+        }
+    };
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+    private int hitCount;
+    private int missCount;
+
+    private MediaPlayerPool() {
+    }
+
+    public static MediaPlayerPool getInstance() {
+        if (instance == null) {
+            instance = new MediaPlayerPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Changes the maximum number of idle media players kept in the pool. Use 0 to release
+     * the media players when the views are detached.
+     *
+     * @param maxSize the maximum number of idle media players
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        while (idlePlayers.size() > this.maxSize) {
+            idlePlayers.pollFirst().player.release();
+        }
+        scheduleEviction();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Changes the time after which an idle media player is released.
+     *
+     * @param idleTimeoutMs the idle timeout in milliseconds
+     */
+    public void setIdleTimeout(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+        scheduleEviction();
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeoutMs;
+    }
+
+    /**
+     * Gets the number of views which reused a media player from the pool.
+     *
+     * @return the number of hits
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of views which created a new media player, because the pool was empty.
+     *
+     * @return the number of misses
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of idle media players in the pool.
+     *
+     * @return the number of idle media players
+     */
+    public int getIdleCount() {
+        return idlePlayers.size();
+    }
+
+    /**
+     * Releases all idle media players.
+     */
+    public void clear() {
+        while (!idlePlayers.isEmpty()) {
+            idlePlayers.pollFirst().player.release();
+        }
+        handler.removeCallbacks(evictRunnable);
+    }
+
+    /**
+     * Borrows a media player - the most recently returned one or a new one if the pool is empty.
+     *
+     * @param listener the listener of the borrowing view
+     * @return the media player
+     */
+    FullscreenVideoMediaPlayer acquire(VideoMediaPlayerListener listener) {
+        IdlePlayer idlePlayer = idlePlayers.pollLast();
+        if (idlePlayer == null) {
+            missCount++;
+            return new FullscreenVideoMediaPlayer(listener);
+        }
+
+        hitCount++;
+        scheduleEviction();
+        idlePlayer.player.reuse(listener);
+        return idlePlayer.player;
+    }
+
+    /**
+     * Returns a borrowed media player. It's reset and kept for reuse, or released if the pool
+     * is disabled.
+     *
+     * @param player the media player
+     */
+    void release(final FullscreenVideoMediaPlayer player) {
+        if (maxSize == 0) {
+            player.onDetach();
+            return;
+        }
+
+        player.recycle(new Runnable() {
+            @Override
+            public void run() {
+                offer(player);
+            }
+        });
+    }
+
+    private void offer(FullscreenVideoMediaPlayer player) {
+        if (maxSize == 0) {
+            player.release();
+            return;
+        }
+
+        while (idlePlayers.size() >= maxSize) {
+            // Keep the most recently used players
+            idlePlayers.pollFirst().player.release();
+        }
+        idlePlayers.addLast(new IdlePlayer(player, SystemClock.elapsedRealtime()));
+        scheduleEviction();
+    }
+
+    private void evictIdlePlayers() {
+        long now = SystemClock.elapsedRealtime();
+        while (!idlePlayers.isEmpty() && now - idlePlayers.peekFirst().idleSince >= idleTimeoutMs) {
+            idlePlayers.pollFirst().player.release();
+        }
+        scheduleEviction();
+    }
+
+    private void scheduleEviction() {
+        handler.removeCallbacks(evictRunnable);
+        IdlePlayer eldest = idlePlayers.peekFirst();
+        if (eldest == null) {
+            return;
+        }
+
+        long delayMs = eldest.idleSince + idleTimeoutMs - SystemClock.elapsedRealtime();
+        handler.postDelayed(evictRunnable, Math.max(0, delayMs));
+    }
+
+    private static class IdlePlayer {
+        final FullscreenVideoMediaPlayer player;
+        final long idleSince;
+
+        IdlePlayer(FullscreenVideoMediaPlayer player, long idleSince) {
+            this.player = player;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -21,7 +21,6 @@ import android.os.Message;
 
 class MessageHandler extends Handler {
     private static final int FADE_OUT = 1;
-    private static final int SHOW_PROGRESS = 2;
 
     private VideoControllerView videoControllerView;
 
@@ -37,62 +36,30 @@ class MessageHandler extends Handler {
 
         if (msg.what == FADE_OUT) {
             videoControllerView.hide();
-        } else { // SHOW_PROGRESS
-            int position = videoControllerView.setProgress();
-            if (!videoControllerView.isDragging() &&
-                    videoControllerView.isShowing() &&
-                    videoControllerView.isPlaying()) {
-                Message message = obtainMessage(SHOW_PROGRESS);
-                sendMessageDelayed(message, 1000 - (position % 1000));
-            }
         }
     }
 
     /**
-     * Shows the progress bar.
+     * Schedules the hiding of the controller.
      *
-     * Checks if the progress bar should be hidden or shown.
+     * Removes the pending fade out message and, if the timeout is not 0, sends a delayed one
+     * with the requested timeout.
      *
-     * If it has to be shown - remove the fade out message and send a delayed one with
-     * the requested timeout.
-     *
-     * If it has to be hidden - just remove the fade out message.
-     *
-     * @param timeout The timeout for progress bar hide in milliseconds.
+     * @param timeout The timeout for the controller hide in milliseconds.
      */
     void show(int timeout) {
-        refresh();
-
-        Message msg = obtainMessage(FADE_OUT);
+        removeMessages(FADE_OUT);
         if (timeout != 0) {
-            removeMessages(FADE_OUT);
-            sendMessageDelayed(msg, timeout);
-        } else {
-            removeMessages(FADE_OUT);
+            sendMessageDelayed(obtainMessage(FADE_OUT), timeout);
         }
     }
 
-    /**
-     * Refreshes the progress bar by sending a SHOW_PROGRESS empty message to the handler.
-     */
-    void refresh() {
-        sendEmptyMessage(SHOW_PROGRESS);
-    }
-
-    /**
-     * Hides the progress bar.
-     *
-     * Uses the {@link #removeMessages(int) removeMessages} Handler method.
-     */
-    void hide() {
-        removeMessages(SHOW_PROGRESS);
-    }
-
     /**
      * Destroys references.
      * Called when a view is detached or destroyed.
      */
     void onDestroy() {
+        removeMessages(FADE_OUT);
         videoControllerView = null;
     }
 }
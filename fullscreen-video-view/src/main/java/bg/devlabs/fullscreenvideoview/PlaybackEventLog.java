@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import bg.devlabs.fullscreenvideoview.model.PlaybackEvent;
+import bg.devlabs.fullscreenvideoview.model.PlaybackEventType;
+
+/**
+ * An append-only file of the playback events which are not handled by the sink yet, so that
+ * they survive the death of the process. Each event is a line of comma-separated values.
+ * The methods do disk I/O and have to be called on a background thread.
+ */
+class PlaybackEventLog {
+    private static final String TAG = "PlaybackEventLog";
+    private static final String SEPARATOR = ",";
+
+    private final File file;
+
+    PlaybackEventLog(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the logged events. Malformed lines, such as one torn by the death of the process
+     * while it was written, are skipped.
+     *
+     * @return the logged events
+     */
+    List<PlaybackEvent> read() {
+        List<PlaybackEvent> events = new ArrayList<>();
+        if (!file.exists()) {
+            return events;
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                PlaybackEvent event = parse(line);
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not read the playback events", exception);
+        }
+        return events;
+    }
+
+    /**
+     * Appends events to the file and syncs it to the disk.
+     *
+     * @param events the events
+     * @throws IOException if the events could not be written
+     */
+    void append(List<PlaybackEvent> events) throws IOException {
+        try (FileOutputStream outputStream = new FileOutputStream(file, true)) {
+            Writer writer = new OutputStreamWriter(outputStream, "UTF-8");
+            for (PlaybackEvent event : events) {
+                writer.write(event.getType().name());
+                writer.write(SEPARATOR);
+                writer.write(Long.toString(event.getTimestampMs()));
+                writer.write(SEPARATOR);
+                writer.write(Long.toString(event.getPositionMs()));
+                writer.write(SEPARATOR);
+                writer.write(Long.toString(event.getValue()));
+                writer.write('\n');
+            }
+            writer.flush();
+            outputStream.getFD().sync();
+        }
+    }
+
+    void clear() {
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    @Nullable
+    private static PlaybackEvent parse(String line) {
+        String[] values = line.split(SEPARATOR);
+        if (values.length != 4) {
+            return null;
+        }
+
+        try {
+            return new PlaybackEvent(
+                    PlaybackEventType.valueOf(values[0]),
+                    Long.parseLong(values[1]),
+                    Long.parseLong(values[2]),
+                    Long.parseLong(values[3])
+            );
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+}
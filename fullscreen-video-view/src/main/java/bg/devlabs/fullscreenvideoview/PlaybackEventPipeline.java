@@ -0,0 +1,409 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import bg.devlabs.fullscreenvideoview.listener.PlaybackEventSink;
+import bg.devlabs.fullscreenvideoview.model.PlaybackEvent;
+import bg.devlabs.fullscreenvideoview.model.PlaybackEventType;
+
+/**
+ * A process-wide pipeline of the player and controller events of all FullscreenVideoView
+ * instances.
+ * <p>
+ * The events are recorded on the main thread into a preallocated ring buffer, so recording
+ * neither allocates nor blocks. The ticks of a SeekBar drag are collapsed into one event.
+ * The events are flushed in batches to the {@link PlaybackEventSink} on a background thread,
+ * when the batch size is reached or the flush interval elapses, whichever comes first. When
+ * persistence is enabled, the events are also appended to a file shortly after they are
+ * recorded, regardless of the flushes, and removed from it once the sink has handled them, so
+ * the unhandled events are sent after the process is restarted. A drag which is still going on
+ * is persisted once it ends. Nothing is recorded until a sink is set.
+ */
+@SuppressWarnings("unused")
+public class PlaybackEventPipeline {
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 30000L;
+
+    private static final String TAG = "PlaybackEventPipeline";
+    private static final String THREAD_NAME = "FullscreenVideoEvents";
+    private static final String LOG_FILE_NAME = "fullscreen-video-events.log";
+    private static final int CAPACITY = 256;
+    private static final int MAX_PENDING_EVENTS = 1000;
+    private static final long DRAG_COLLAPSE_WINDOW_MS = 500L;
+    private static final long PERSIST_DELAY_MS = 1000L;
+
+    private static PlaybackEventPipeline instance;
+
+    // The ring buffer, guarded by this
+    private final int[] types = new int[CAPACITY];
+    private final long[] timestamps = new long[CAPACITY];
+    private final long[] positions = new long[CAPACITY];
+    private final long[] values = new long[CAPACITY];
+    private int head;
+    private int size;
+    private long lastDragTickTime;
+    private long droppedCount;
+    // The number of events recorded since the last flush
+    private int unflushedCount;
+    private boolean isPersistScheduled;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushPending();
+        }
+    };
+
+    private final Runnable persistRunnable = new Runnable() {
+        @Override
+        public void run() {
+            persistRecorded();
+        }
+    };
+
+    @Nullable
+    private volatile PlaybackEventSink sink;
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+    private volatile long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+    private volatile boolean isPersistenceEnabled;
+    @Nullable
+    private Handler workerHandler;
+
+    // Only accessed on the worker thread
+    private final List<PlaybackEvent> pendingEvents = new ArrayList<>();
+    @Nullable
+    private PlaybackEventLog log;
+
+    PlaybackEventPipeline() {
+    }
+
+    public static PlaybackEventPipeline getInstance() {
+        if (instance == null) {
+            instance = new PlaybackEventPipeline();
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the sink which receives the batches of events. Recording starts once a sink is set.
+     *
+     * @param sink the sink or null to stop recording
+     */
+    public void setSink(@Nullable PlaybackEventSink sink) {
+        this.sink = sink;
+        if (sink != null) {
+            // Send the events persisted by a previous process
+            getWorkerHandler().post(flushRunnable);
+        }
+    }
+
+    /**
+     * Changes the number of recorded events which triggers a flush.
+     *
+     * @param batchSize the batch size
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, Math.min(batchSize, CAPACITY));
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Changes the maximum time an event waits before it's flushed.
+     *
+     * @param flushIntervalMs the flush interval in milliseconds
+     */
+    public void setFlushInterval(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getFlushInterval() {
+        return flushIntervalMs;
+    }
+
+    /**
+     * Persists the events which are not handled by the sink yet to an append-only file in
+     * the app files directory, so that they survive the death of the process. The events left
+     * by a previous process are sent with the next batch.
+     *
+     * @param context the context used to resolve the files directory
+     */
+    public void enablePersistence(Context context) {
+        final File file = new File(context.getApplicationContext().getFilesDir(), LOG_FILE_NAME);
+        isPersistenceEnabled = true;
+        getWorkerHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                if (log != null) {
+                    return;
+                }
+
+                log = new PlaybackEventLog(file);
+                pendingEvents.addAll(0, log.read());
+                flushPending();
+            }
+        });
+    }
+
+    /**
+     * Flushes the recorded events to the sink without waiting for the batch size or the flush
+     * interval.
+     */
+    public void flush() {
+        if (sink == null) {
+            return;
+        }
+
+        Handler handler = getWorkerHandler();
+        handler.removeCallbacks(flushRunnable);
+        handler.post(flushRunnable);
+    }
+
+    /**
+     * Gets the number of events which were dropped, because the ring buffer was full.
+     *
+     * @return the number of dropped events
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Records an event. The drag ticks which follow each other within a short window update
+     * the recorded drag event instead of adding new ones.
+     *
+     * @param type       the event type
+     * @param positionMs the playback position in milliseconds
+     * @param value      the value which depends on the event type
+     */
+    void record(PlaybackEventType type, long positionMs, long value) {
+        if (sink == null) {
+            return;
+        }
+
+        int count = add(type, System.currentTimeMillis(), positionMs, value,
+                SystemClock.elapsedRealtime());
+        if (count >= batchSize) {
+            flush();
+            return;
+        }
+
+        if (count == 1) {
+            getWorkerHandler().postDelayed(flushRunnable, flushIntervalMs);
+        }
+        if (isPersistenceEnabled) {
+            schedulePersist();
+        }
+    }
+
+    /**
+     * Adds an event to the ring buffer or collapses a drag tick into the recorded drag event.
+     *
+     * @param type        the event type
+     * @param timestamp   the wall clock time in milliseconds
+     * @param positionMs  the playback position in milliseconds
+     * @param value       the value which depends on the event type
+     * @param elapsedTime the time since boot in milliseconds, used to collapse the drag ticks
+     * @return the number of events recorded since the last flush, or 0 if the event has been
+     * collapsed
+     */
+    synchronized int add(PlaybackEventType type, long timestamp, long positionMs, long value,
+                         long elapsedTime) {
+        if (type == PlaybackEventType.SEEK_BAR_DRAGGED && isDragCollapsible(elapsedTime)) {
+            values[(head + size - 1) % CAPACITY] = value;
+            lastDragTickTime = elapsedTime;
+            return 0;
+        }
+
+        if (size == CAPACITY) {
+            // Drop the oldest event
+            head = (head + 1) % CAPACITY;
+            size--;
+            droppedCount++;
+        }
+
+        int index = (head + size) % CAPACITY;
+        types[index] = type.ordinal();
+        timestamps[index] = timestamp;
+        positions[index] = positionMs;
+        values[index] = value;
+        size++;
+        lastDragTickTime = type == PlaybackEventType.SEEK_BAR_DRAGGED ? elapsedTime : 0;
+        return ++unflushedCount;
+    }
+
+    private boolean isDragCollapsible(long elapsedTime) {
+        if (size == 0 || lastDragTickTime == 0) {
+            return false;
+        }
+
+        int last = (head + size - 1) % CAPACITY;
+        return types[last] == PlaybackEventType.SEEK_BAR_DRAGGED.ordinal()
+                && elapsedTime - lastDragTickTime <= DRAG_COLLAPSE_WINDOW_MS;
+    }
+
+    /**
+     * Moves the recorded events out of the ring buffer. The events are only allocated here,
+     * on the worker thread.
+     *
+     * @param elapsedTime    the time since boot in milliseconds
+     * @param isOpenDragKept whether a drag event which can still collapse ticks is kept in
+     *                       the ring buffer
+     * @return the events in the order they were recorded
+     */
+    synchronized List<PlaybackEvent> takeEvents(long elapsedTime, boolean isOpenDragKept) {
+        int count = isOpenDragKept && isDragCollapsible(elapsedTime) ? size - 1 : size;
+        PlaybackEventType[] eventTypes = PlaybackEventType.values();
+        List<PlaybackEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = (head + i) % CAPACITY;
+            events.add(new PlaybackEvent(
+                    eventTypes[types[index]],
+                    timestamps[index],
+                    positions[index],
+                    values[index]
+            ));
+        }
+        head = (head + count) % CAPACITY;
+        size -= count;
+        if (size == 0) {
+            lastDragTickTime = 0;
+        }
+        return events;
+    }
+
+    private synchronized void schedulePersist() {
+        if (!isPersistScheduled) {
+            isPersistScheduled = true;
+            getWorkerHandler().postDelayed(persistRunnable, PERSIST_DELAY_MS);
+        }
+    }
+
+    /**
+     * Moves the recorded events to the pending events and the log, without waiting for a flush.
+     * Runs on the worker thread.
+     */
+    private void persistRecorded() {
+        synchronized (this) {
+            isPersistScheduled = false;
+        }
+        movePendingEvents(takeEvents(SystemClock.elapsedRealtime(), true));
+
+        boolean isDragOpen;
+        synchronized (this) {
+            isDragOpen = size > 0;
+        }
+        if (isDragOpen) {
+            schedulePersist();
+        }
+    }
+
+    private void movePendingEvents(List<PlaybackEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        if (log != null) {
+            try {
+                log.append(events);
+            } catch (IOException exception) {
+                Log.w(TAG, "Could not persist the playback events", exception);
+            }
+        }
+        pendingEvents.addAll(events);
+        trimPendingEvents();
+    }
+
+    /**
+     * Persists the recorded events and passes all pending events to the sink. The events which
+     * the sink fails to handle stay pending until the next flush. Runs on the worker thread.
+     */
+    private void flushPending() {
+        synchronized (this) {
+            unflushedCount = 0;
+        }
+        movePendingEvents(takeEvents(SystemClock.elapsedRealtime(), false));
+
+        PlaybackEventSink sink = this.sink;
+        if (sink == null || pendingEvents.isEmpty()) {
+            return;
+        }
+
+        try {
+            sink.onPlaybackEvents(
+                    Collections.unmodifiableList(new ArrayList<>(pendingEvents)));
+        } catch (IOException | RuntimeException exception) {
+            Log.w(TAG, "The sink could not handle the playback events", exception);
+            getWorkerHandler().postDelayed(flushRunnable, flushIntervalMs);
+            return;
+        }
+
+        pendingEvents.clear();
+        if (log != null) {
+            log.clear();
+        }
+    }
+
+    private void trimPendingEvents() {
+        int excess = pendingEvents.size() - MAX_PENDING_EVENTS;
+        if (excess <= 0) {
+            return;
+        }
+
+        pendingEvents.subList(0, excess).clear();
+        synchronized (this) {
+            droppedCount += excess;
+        }
+
+        if (log != null) {
+            // Keep the file in sync with the pending events
+            log.clear();
+            try {
+                log.append(pendingEvents);
+            } catch (IOException exception) {
+                Log.w(TAG, "Could not persist the playback events", exception);
+            }
+        }
+    }
+
+    private synchronized Handler getWorkerHandler() {
+        if (workerHandler == null) {
+            HandlerThread thread =
+                    new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            workerHandler = new Handler(thread.getLooper());
+        }
+        return workerHandler;
+    }
+}
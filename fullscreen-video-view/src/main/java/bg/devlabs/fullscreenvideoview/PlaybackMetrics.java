@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+import bg.devlabs.fullscreenvideoview.listener.PlaybackMetricsSink;
+import bg.devlabs.fullscreenvideoview.model.MediaPlayerErrorType;
+import bg.devlabs.fullscreenvideoview.model.PlaybackMetricsSnapshot;
+
+/**
+ * Records the quality of experience of the playback of a FullscreenVideoView - the startup
+ * time, the time to the first frame, the stalls because of buffering, the seek latency,
+ * the errors and the attempts to recover from them. The metrics are recorded per video and
+ * reported to the {@link PlaybackMetricsSink} when the video is changed or the view is
+ * detached. The methods have to be called on the main thread.
+ */
+public class PlaybackMetrics {
+    private static final long NOT_STARTED = -1;
+
+    private final LatencyRecorder startupTime = new LatencyRecorder();
+    private final LatencyRecorder firstFrameTime = new LatencyRecorder();
+    private final LatencyRecorder prepareTime = new LatencyRecorder();
+    private final LatencyRecorder rebufferingTime = new LatencyRecorder();
+    private final LatencyRecorder seekLatency = new LatencyRecorder();
+    private final int[] errorCounts = new int[MediaPlayerErrorType.values().length];
+    @Nullable
+    private PlaybackMetricsSink sink;
+    private long setupTime = NOT_STARTED;
+    private boolean isPreparePending;
+    private int recoveryAttemptCount;
+    private int recoveredErrorCount;
+    private int failedErrorCount;
+    private boolean hasErrors;
+
+    PlaybackMetrics() {
+    }
+
+    /**
+     * Takes a snapshot of the metrics of the current video.
+     *
+     * @return the snapshot
+     */
+    public PlaybackMetricsSnapshot snapshot() {
+        return new PlaybackMetricsSnapshot(
+                startupTime.snapshot(),
+                firstFrameTime.snapshot(),
+                prepareTime.snapshot(),
+                rebufferingTime.snapshot(),
+                seekLatency.snapshot(),
+                errorCounts,
+                recoveryAttemptCount,
+                recoveredErrorCount,
+                failedErrorCount
+        );
+    }
+
+    /**
+     * Clears the metrics of the current video.
+     */
+    public void reset() {
+        startupTime.reset();
+        firstFrameTime.reset();
+        prepareTime.reset();
+        rebufferingTime.reset();
+        seekLatency.reset();
+        Arrays.fill(errorCounts, 0);
+        recoveryAttemptCount = 0;
+        recoveredErrorCount = 0;
+        failedErrorCount = 0;
+        hasErrors = false;
+        setupTime = NOT_STARTED;
+        isPreparePending = false;
+    }
+
+    void setSink(@Nullable PlaybackMetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Reports the metrics of the current video, if any, and clears them.
+     */
+    void report() {
+        boolean isEmpty = startupTime.isEmpty() && firstFrameTime.isEmpty()
+                && prepareTime.isEmpty() && rebufferingTime.isEmpty() && seekLatency.isEmpty()
+                && !hasErrors;
+        if (!isEmpty && sink != null) {
+            sink.onPlaybackMetricsReported(snapshot());
+        }
+        reset();
+    }
+
+    void onSetup() {
+        setupTime = SystemClock.elapsedRealtime();
+        isPreparePending = true;
+    }
+
+    void onPrepared() {
+        if (isPreparePending) {
+            isPreparePending = false;
+            startupTime.record(SystemClock.elapsedRealtime() - setupTime);
+        }
+    }
+
+    /**
+     * Records the time of a single preparation of the media player, including the preparations
+     * again after errors.
+     *
+     * @param prepareTimeMs the prepare time in milliseconds
+     */
+    void onPrepareTimeMeasured(long prepareTimeMs) {
+        prepareTime.record(prepareTimeMs);
+    }
+
+    void onRenderingStarted() {
+        if (setupTime != NOT_STARTED) {
+            firstFrameTime.record(SystemClock.elapsedRealtime() - setupTime);
+            setupTime = NOT_STARTED;
+        }
+    }
+
+    void onBufferingEnded(long stallDurationMs) {
+        rebufferingTime.record(stallDurationMs);
+    }
+
+    void onSeekCompleted(long latencyMs) {
+        seekLatency.record(latencyMs);
+    }
+
+    void onError(MediaPlayerErrorType type) {
+        errorCounts[type.ordinal()]++;
+        hasErrors = true;
+    }
+
+    void onRecoveryAttempt() {
+        recoveryAttemptCount++;
+    }
+
+    void onRecovered() {
+        recoveredErrorCount++;
+    }
+
+    void onFailed() {
+        failedErrorCount++;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.media.MediaTimestamp;
+import android.os.Build;
+import android.view.Choreographer;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+
+import bg.devlabs.fullscreenvideoview.listener.OnPlaybackPositionListener;
+
+/**
+ * Delivers the playback position to OnPlaybackPositionListener on every display frame.
+ * <p>
+ * The position is anchored on a MediaTimestamp from the media player, or on the player state
+ * mirror before API 23, and extrapolated with the media clock rate. The anchor is read again
+ * only when the playback starts, pauses, seeks or changes its speed, so the frames do not
+ * cross into the media server and do not allocate.
+ *
+ * @see OnPlaybackPositionListener
+ */
+class PlaybackPositionTracker implements Choreographer.FrameCallback {
+    // How often to retry reading the anchor while the media clock has not started yet
+    private static final long REANCHOR_RETRY_NANOS = 100000000L;
+    private static final long NANOS_IN_MICROSECOND = 1000L;
+    private static final long MICROS_IN_MILLISECOND = 1000L;
+
+    private final ArrayList<OnPlaybackPositionListener> listeners = new ArrayList<>();
+    @Nullable
+    private Choreographer choreographer;
+    @Nullable
+    private FullscreenVideoMediaPlayer mediaPlayer;
+
+    private long anchorMediaTimeUs;
+    private long anchorSystemNanos;
+    private float clockRate;
+    private long lastReanchorNanos;
+    private long lastPositionMs = -1;
+    private boolean isFrameCallbackPosted;
+
+    void setMediaPlayer(@Nullable FullscreenVideoMediaPlayer mediaPlayer) {
+        this.mediaPlayer = mediaPlayer;
+        lastPositionMs = -1;
+        if (mediaPlayer == null) {
+            removeFrameCallback();
+        } else {
+            onPlaybackStateChanged();
+        }
+    }
+
+    void addListener(OnPlaybackPositionListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+        onPlaybackStateChanged();
+    }
+
+    void removeListener(OnPlaybackPositionListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty()) {
+            removeFrameCallback();
+        }
+    }
+
+    /**
+     * Reads a new anchor. Called when the playback starts, pauses, seeks or changes its speed.
+     */
+    void onPlaybackStateChanged() {
+        if (mediaPlayer == null || listeners.isEmpty()) {
+            return;
+        }
+
+        reanchor();
+        postFrameCallback();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        isFrameCallbackPosted = false;
+        if (mediaPlayer == null || listeners.isEmpty()) {
+            return;
+        }
+
+        PlayerStateMirror playerState = mediaPlayer.getStateMirror();
+        boolean isPlaying = playerState.isPlaying();
+        if (isPlaying && clockRate == 0
+                && frameTimeNanos - lastReanchorNanos > REANCHOR_RETRY_NANOS) {
+            // The player is started, but its clock was not running yet when it was anchored
+            reanchor();
+        }
+
+        long positionMs = getPositionMs(frameTimeNanos, playerState.getDuration());
+        if (positionMs != lastPositionMs) {
+            lastPositionMs = positionMs;
+            int size = listeners.size();
+            for (int i = 0; i < size; i++) {
+                listeners.get(i).onPlaybackPositionChanged(positionMs);
+            }
+        }
+
+        if (isPlaying) {
+            postFrameCallback();
+        }
+    }
+
+    /**
+     * Stops the frame callbacks and removes the listeners.
+     * Called when a view is detached or destroyed.
+     */
+    void onDestroy() {
+        removeFrameCallback();
+        listeners.clear();
+        mediaPlayer = null;
+    }
+
+    private long getPositionMs(long frameTimeNanos, int durationMs) {
+        long elapsedUs = (frameTimeNanos - anchorSystemNanos) / NANOS_IN_MICROSECOND;
+        long positionUs = anchorMediaTimeUs + (long) (elapsedUs * clockRate);
+        long positionMs = Math.max(0, positionUs / MICROS_IN_MILLISECOND);
+        if (durationMs > 0 && positionMs > durationMs) {
+            return durationMs;
+        }
+        return positionMs;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void reanchor() {
+        if (mediaPlayer == null) {
+            return;
+        }
+
+        PlayerStateMirror playerState = mediaPlayer.getStateMirror();
+        lastReanchorNanos = System.nanoTime();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && playerState.isPrepared()) {
+            try {
+                MediaTimestamp timestamp = mediaPlayer.getTimestamp();
+                if (timestamp != null) {
+                    anchorMediaTimeUs = timestamp.getAnchorMediaTimeUs();
+                    // Replaced by getAnchorSystemNanoTime() on API 29, same value
+                    anchorSystemNanos = timestamp.getAnchorSytemNanoTime();
+                    clockRate = timestamp.getMediaClockRate();
+                    return;
+                }
+            } catch (IllegalStateException ignored) {
+                // Fall back to the state mirror
+            }
+        }
+
+        anchorMediaTimeUs = playerState.getCurrentPosition() * MICROS_IN_MILLISECOND;
+        anchorSystemNanos = lastReanchorNanos;
+        clockRate = playerState.isPlaying() ? playerState.getSpeed() : 0;
+    }
+
+    private void postFrameCallback() {
+        if (isFrameCallbackPosted) {
+            return;
+        }
+
+        if (choreographer == null) {
+            choreographer = Choreographer.getInstance();
+        }
+        choreographer.postFrameCallback(this);
+        isFrameCallbackPosted = true;
+    }
+
+    private void removeFrameCallback() {
+        if (choreographer != null && isFrameCallbackPosted) {
+            choreographer.removeFrameCallback(this);
+        }
+        isFrameCallbackPosted = false;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Executes the commands of a media player.
+ * <p>
+ * By default the commands run directly on the calling thread. When the background mode is
+ * enabled they run in order on a dedicated thread shared by all players, because commands like
+ * setDataSource() and release() block on the media server. The callbacks of the commands are
+ * posted back to the main thread.
+ */
+class PlayerCommandExecutor {
+    private static final String TAG = "PlayerCommandExecutor";
+    private static final String THREAD_NAME = "FullscreenVideoPlayer";
+
+    @Nullable
+    private static Handler commandHandler;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean isBackgroundEnabled;
+
+    /**
+     * Makes the following commands run on the dedicated player thread.
+     */
+    void enableBackground() {
+        isBackgroundEnabled = true;
+    }
+
+    /**
+     * Makes the following commands run directly on the calling thread. Must be called only when
+     * no commands are pending on the player thread.
+     */
+    void disableBackground() {
+        isBackgroundEnabled = false;
+    }
+
+    boolean isBackgroundEnabled() {
+        return isBackgroundEnabled;
+    }
+
+    /**
+     * Executes a player command.
+     *
+     * @param command the command
+     */
+    void execute(Runnable command) {
+        execute(command, null);
+    }
+
+    /**
+     * Executes a player command and runs a callback on the main thread when the command is done.
+     *
+     * @param command    the command
+     * @param onExecuted the callback or null
+     */
+    void execute(final Runnable command, @Nullable final Runnable onExecuted) {
+        if (!isBackgroundEnabled) {
+            command.run();
+            if (onExecuted != null) {
+                onExecuted.run();
+            }
+            return;
+        }
+
+        getCommandHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    command.run();
+                } catch (RuntimeException exception) {
+                    // The caller is on another thread, so there is nobody to throw to and
+                    // the player thread has to survive for the other players
+                    Log.w(TAG, "Player command failed and was dropped", exception);
+                }
+
+                if (onExecuted != null) {
+                    mainHandler.post(onExecuted);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a callback on the main thread. In the direct mode the callback runs immediately.
+     *
+     * @param callback the callback
+     */
+    void postToMain(Runnable callback) {
+        if (isBackgroundEnabled) {
+            mainHandler.post(callback);
+        } else {
+            callback.run();
+        }
+    }
+
+    private static synchronized Handler getCommandHandler() {
+        if (commandHandler == null) {
+            HandlerThread thread = new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_DEFAULT);
+            thread.start();
+            commandHandler = new Handler(thread.getLooper());
+        }
+
+        return commandHandler;
+    }
+}
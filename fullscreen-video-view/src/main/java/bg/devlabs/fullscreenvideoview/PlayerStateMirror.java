@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.os.SystemClock;
+
+/**
+ * Mirrors the state of the media player, so that reading it does not cross into the media
+ * server. The mirror is updated from the media player commands and callbacks on the main thread.
+ * <p>
+ * The position is anchored on every state change and extrapolated with the playback speed
+ * while the video is playing and not buffering.
+ */
+class PlayerStateMirror {
+    private boolean isPrepared;
+    private boolean isPlaying;
+    private boolean isBuffering;
+    private int durationMs;
+    private float speed = 1f;
+    private int anchorPositionMs;
+    private long anchorTime;
+
+    void onPrepared(int durationMs) {
+        this.isPrepared = true;
+        this.durationMs = durationMs;
+    }
+
+    void onStarted() {
+        anchor(getCurrentPosition());
+        isPlaying = isPrepared;
+    }
+
+    void onPaused() {
+        anchor(getCurrentPosition());
+        isPlaying = false;
+    }
+
+    void onCompleted() {
+        anchor(durationMs);
+        isPlaying = false;
+    }
+
+    void onBufferingChanged(boolean isBuffering) {
+        anchor(getCurrentPosition());
+        this.isBuffering = isBuffering;
+    }
+
+    /**
+     * Moves the position to the target of a seek, so that it's shown before the seek completes.
+     *
+     * @param positionMs the seek position in milliseconds
+     */
+    void onSeekRequested(int positionMs) {
+        anchor(positionMs);
+    }
+
+    /**
+     * Synchronizes the position with the one read from the media player.
+     *
+     * @param positionMs the position of the media player in milliseconds
+     */
+    void onPositionSynced(int positionMs) {
+        anchor(positionMs);
+    }
+
+    /**
+     * Changes the playback speed. Setting a non-zero speed starts a paused media player.
+     *
+     * @param speed the playback speed
+     */
+    void onSpeedChanged(float speed) {
+        anchor(getCurrentPosition());
+        this.speed = speed;
+        if (speed > 0) {
+            isPlaying = isPrepared;
+        }
+    }
+
+    /**
+     * Clears the state. Called when the media player is reset or gets a new data source, after
+     * which it plays at the normal speed.
+     */
+    void reset() {
+        isPrepared = false;
+        isPlaying = false;
+        isBuffering = false;
+        durationMs = 0;
+        speed = 1f;
+        anchor(0);
+    }
+
+    boolean isPrepared() {
+        return isPrepared;
+    }
+
+    boolean isPlaying() {
+        return isPlaying;
+    }
+
+    int getDuration() {
+        return durationMs;
+    }
+
+    float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Gets the position extrapolated from the last anchor.
+     *
+     * @return the position in milliseconds
+     */
+    int getCurrentPosition() {
+        if (!isPlaying || isBuffering) {
+            return anchorPositionMs;
+        }
+
+        long elapsedMs = SystemClock.elapsedRealtime() - anchorTime;
+        long positionMs = anchorPositionMs + (long) (elapsedMs * speed);
+        if (durationMs > 0 && positionMs > durationMs) {
+            return durationMs;
+        }
+        return (int) positionMs;
+    }
+
+    private void anchor(int positionMs) {
+        anchorPositionMs = positionMs;
+        anchorTime = SystemClock.elapsedRealtime();
+    }
+}
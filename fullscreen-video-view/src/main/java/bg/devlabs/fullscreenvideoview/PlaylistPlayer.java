@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.media.MediaPlayer;
+
+import bg.devlabs.fullscreenvideoview.model.MediaPlayerError;
+
+/**
+ * A media player of a playlist item, which is prepared while another item is playing.
+ * <p>
+ * It listens to its media player until the view switches to it, so that the preparation of
+ * the item does not affect the controls of the playing one.
+ */
+class PlaylistPlayer implements VideoMediaPlayerListener {
+
+    interface Callback {
+
+        void onPlaylistPlayerPrepared(PlaylistPlayer playlistPlayer);
+
+        void onPlaylistPlayerError(PlaylistPlayer playlistPlayer, MediaPlayerError error);
+
+        void onPlaylistPlayerEvicted(PlaylistPlayer playlistPlayer);
+    }
+
+    final int index;
+    final FullscreenVideoMediaPlayer player;
+    private final Callback callback;
+
+    private boolean isPrepared;
+    private boolean isChained;
+    private boolean isStartRequested;
+
+    private PlaylistPlayer(int index, FullscreenVideoMediaPlayer player, Callback callback) {
+        this.index = index;
+        this.player = player;
+        this.callback = callback;
+    }
+
+    /**
+     * Starts preparing a playlist item in a media player borrowed from the pool.
+     *
+     * @param index              the index of the item in the playlist
+     * @param dataSource         the data source of the item
+     * @param isBackgroundPlayer true to run the media player commands in the background
+     * @param callback           the callback for the preparation
+     * @return the playlist player
+     */
+    static PlaylistPlayer prepare(int index,
+                                  String dataSource,
+                                  boolean isBackgroundPlayer,
+                                  Callback callback) {
+        // The listener is set once the playlist player wraps the media player
+        FullscreenVideoMediaPlayer player = MediaPlayerPool.getInstance().acquire(null);
+        if (isBackgroundPlayer) {
+            player.enableBackgroundCommands();
+        }
+        PlaylistPlayer playlistPlayer = new PlaylistPlayer(index, player, callback);
+        player.setListener(playlistPlayer);
+        player.init(dataSource);
+        player.prepareAsync();
+        return playlistPlayer;
+    }
+
+    /**
+     * Wraps the media player of an item which has been playing, so that it can be played again
+     * without preparing it.
+     *
+     * @param index    the index of the item in the playlist
+     * @param player   the prepared media player
+     * @param callback the callback
+     * @return the playlist player
+     */
+    static PlaylistPlayer ofPrepared(int index,
+                                     FullscreenVideoMediaPlayer player,
+                                     Callback callback) {
+        PlaylistPlayer playlistPlayer = new PlaylistPlayer(index, player, callback);
+        playlistPlayer.isPrepared = true;
+        player.setListener(playlistPlayer);
+        return playlistPlayer;
+    }
+
+    boolean isPrepared() {
+        return isPrepared;
+    }
+
+    boolean isChained() {
+        return isChained;
+    }
+
+    /**
+     * Marks the media player as the next one of the playing media player, which starts it
+     * when its playback completes.
+     */
+    void onChained() {
+        isChained = true;
+    }
+
+    boolean isStartRequested() {
+        return isStartRequested;
+    }
+
+    /**
+     * Requests the view to switch to this item as soon as it's prepared.
+     */
+    void requestStart() {
+        isStartRequested = true;
+    }
+
+    /**
+     * Returns the media player to the pool.
+     */
+    void release() {
+        MediaPlayerPool.getInstance().release(player);
+    }
+
+    @Override
+    public void onMediaPlayerPrepared(MediaPlayer mediaPlayer,
+                                      int videoWidth,
+                                      int videoHeight,
+                                      boolean isAutoStartEnabled) {
+        isPrepared = true;
+        callback.onPlaylistPlayerPrepared(this);
+    }
+
+    @Override
+    public boolean onMediaPlayerError(MediaPlayerError error) {
+        // The playlist releases the media player, so it must not complete the item
+        callback.onPlaylistPlayerError(this, error);
+        return true;
+    }
+
+    @Override
+    public void onMediaPlayerCompletion() {
+    }
+
+    @Override
+    public void onMediaPlayerStarted() {
+    }
+
+    @Override
+    public void onMediaPlayerRenderingStarted() {
+    }
+
+    @Override
+    public boolean onMediaPlayerEvicted() {
+        callback.onPlaylistPlayerEvicted(this);
+        return true;
+    }
+
+    @Override
+    public boolean onMediaPlayerRestoreRequested() {
+        return false;
+    }
+
+    @Override
+    public void onMediaPlayerPlaybackStateChanged() {
+    }
+
+    @Override
+    public void onMediaPlayerBufferingUpdate(int percent) {
+    }
+
+    @Override
+    public void onMediaPlayerBufferingStarted() {
+    }
+
+    @Override
+    public void onMediaPlayerBufferingEnded() {
+    }
+
+    @Override
+    public void onMediaPlayerSeekCompleted(int positionMs, long latencyMs) {
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The videos of a playlist, the index of the playing one and the media players prepared
+ * for the items around it.
+ */
+class PlaylistQueue {
+    private final ArrayList<String> videoPaths = new ArrayList<>();
+    private int index;
+    @Nullable
+    private PlaylistPlayer nextPlayer;
+    @Nullable
+    private PlaylistPlayer previousPlayer;
+
+    void setVideoPaths(List<String> videoPaths) {
+        clear();
+        this.videoPaths.addAll(videoPaths);
+    }
+
+    boolean isEmpty() {
+        return videoPaths.isEmpty();
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    String getVideoPath(int index) {
+        return videoPaths.get(index);
+    }
+
+    boolean hasNext() {
+        return index + 1 < videoPaths.size();
+    }
+
+    boolean hasPrevious() {
+        return index > 0 && !videoPaths.isEmpty();
+    }
+
+    @Nullable
+    PlaylistPlayer getNextPlayer() {
+        return nextPlayer;
+    }
+
+    /**
+     * Replaces the player of the next item. The replaced player is returned to the pool.
+     *
+     * @param nextPlayer the player of the next item or null
+     */
+    void setNextPlayer(@Nullable PlaylistPlayer nextPlayer) {
+        if (this.nextPlayer != null && this.nextPlayer != nextPlayer) {
+            this.nextPlayer.release();
+        }
+        this.nextPlayer = nextPlayer;
+    }
+
+    @Nullable
+    PlaylistPlayer getPreviousPlayer() {
+        return previousPlayer;
+    }
+
+    /**
+     * Replaces the player of the previous item. The replaced player is returned to the pool.
+     *
+     * @param previousPlayer the player of the previous item or null
+     */
+    void setPreviousPlayer(@Nullable PlaylistPlayer previousPlayer) {
+        if (this.previousPlayer != null && this.previousPlayer != previousPlayer) {
+            this.previousPlayer.release();
+        }
+        this.previousPlayer = previousPlayer;
+    }
+
+    /**
+     * Forgets a player without releasing it, because it became the playing one.
+     *
+     * @param playlistPlayer the player
+     */
+    void detachPlayer(PlaylistPlayer playlistPlayer) {
+        if (nextPlayer == playlistPlayer) {
+            nextPlayer = null;
+        }
+        if (previousPlayer == playlistPlayer) {
+            previousPlayer = null;
+        }
+    }
+
+    /**
+     * Returns the prepared players to the pool. The videos are kept.
+     */
+    void releasePlayers() {
+        setNextPlayer(null);
+        setPreviousPlayer(null);
+    }
+
+    /**
+     * Returns the prepared players to the pool and removes the videos.
+     */
+    void clear() {
+        releasePlayers();
+        videoPaths.clear();
+        index = 0;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Downloads the remote thumbnails to a disk cache shared by all FullscreenVideoView instances.
+ * The methods block on the network and have to be called on a background thread.
+ */
+class PosterDownloader {
+    private static final String CACHE_DIRECTORY_NAME = "fullscreen-video-thumbnails";
+    private static final long MAX_SIZE_BYTES = 32L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 15000;
+
+    private static CacheDirectory cacheDirectory;
+
+    /**
+     * Gets the cached file of a thumbnail, downloading it if it's not cached.
+     *
+     * @param context the context used to resolve the cache directory
+     * @param url     the URL of the thumbnail
+     * @return the cached file
+     * @throws IOException if the thumbnail could not be downloaded or the download was
+     *                     interrupted
+     */
+    static File download(Context context, String url) throws IOException {
+        CacheDirectory directory = getCacheDirectory(context);
+        String name = CacheDirectory.keyFor(url);
+        File file = directory.get(name);
+        if (file != null) {
+            return file;
+        }
+
+        File tempFile = directory.newTempFile();
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        try {
+            int responseCode = connection.getResponseCode();
+            if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                throw new IOException("The server responded with " + responseCode);
+            }
+
+            try (InputStream inputStream = connection.getInputStream();
+                 OutputStream outputStream = new FileOutputStream(tempFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int length;
+                while ((length = inputStream.read(buffer)) != -1) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedIOException("The thumbnail download was cancelled");
+                    }
+                    outputStream.write(buffer, 0, length);
+                }
+            }
+        } catch (IOException exception) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw exception;
+        } finally {
+            connection.disconnect();
+        }
+
+        directory.commit(tempFile, name);
+        file = directory.get(name);
+        if (file == null) {
+            throw new IOException("Could not cache the thumbnail " + url);
+        }
+        return file;
+    }
+
+    private static synchronized CacheDirectory getCacheDirectory(Context context) {
+        if (cacheDirectory == null) {
+            File directory = new File(context.getCacheDir(), CACHE_DIRECTORY_NAME);
+            cacheDirectory = new CacheDirectory(directory, MAX_SIZE_BYTES);
+        }
+        return cacheDirectory;
+    }
+}
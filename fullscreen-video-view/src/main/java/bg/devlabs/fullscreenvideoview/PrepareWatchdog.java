@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Watches the preparation of a media player, because on some devices and servers neither
+ * the prepared nor the error callback ever arrives. Measures the prepare time as well.
+ * The methods have to be called on the main thread.
+ */
+class PrepareWatchdog {
+    private static final long NOT_STARTED = -1;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable onTimeout;
+    private long timeoutMs;
+    private long startTime = NOT_STARTED;
+
+    private final Runnable timeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            startTime = NOT_STARTED;
+            onTimeout.run();
+        }
+    };
+
+    PrepareWatchdog(Runnable onTimeout) {
+        this.onTimeout = onTimeout;
+    }
+
+    /**
+     * Changes the deadline of the preparations started afterwards.
+     *
+     * @param timeoutMs the deadline in milliseconds or 0 to wait without a deadline
+     */
+    void setTimeout(long timeoutMs) {
+        this.timeoutMs = Math.max(0, timeoutMs);
+    }
+
+    void start() {
+        cancel();
+        startTime = SystemClock.elapsedRealtime();
+        if (timeoutMs > 0) {
+            handler.postDelayed(timeoutRunnable, timeoutMs);
+        }
+    }
+
+    /**
+     * Stops watching a completed preparation.
+     *
+     * @return the prepare time in milliseconds or -1 if no preparation was watched
+     */
+    long stop() {
+        long prepareTimeMs = startTime == NOT_STARTED
+                ? -1
+                : SystemClock.elapsedRealtime() - startTime;
+        cancel();
+        return prepareTimeMs;
+    }
+
+    void cancel() {
+        startTime = NOT_STARTED;
+        handler.removeCallbacks(timeoutRunnable);
+    }
+}
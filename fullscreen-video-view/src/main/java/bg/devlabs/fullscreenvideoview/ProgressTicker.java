@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.view.Choreographer;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Refreshes the progress of a {@link VideoControllerView} on the display frame closest to each
+ * full second of the playback.
+ * <p>
+ * The ticker stops by itself when the controller is hidden, the SeekBar is dragged or the video
+ * is paused, and has to be started again with {@link #start()}.
+ */
+class ProgressTicker implements Choreographer.FrameCallback {
+
+    @Nullable
+    private VideoControllerView videoControllerView;
+    @Nullable
+    private Choreographer choreographer;
+    private boolean isFrameCallbackPosted;
+
+    ProgressTicker(VideoControllerView videoControllerView) {
+        this.videoControllerView = videoControllerView;
+    }
+
+    /**
+     * Refreshes the progress on the next frame and keeps refreshing it while the video plays.
+     */
+    void start() {
+        if (isFrameCallbackPosted || videoControllerView == null) {
+            return;
+        }
+
+        getChoreographer().postFrameCallback(this);
+        isFrameCallbackPosted = true;
+    }
+
+    /**
+     * Stops refreshing the progress.
+     */
+    void stop() {
+        if (isFrameCallbackPosted && choreographer != null) {
+            choreographer.removeFrameCallback(this);
+        }
+        isFrameCallbackPosted = false;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        isFrameCallbackPosted = false;
+        if (videoControllerView == null) {
+            return;
+        }
+
+        int position = videoControllerView.setProgress();
+        if (!videoControllerView.isDragging() &&
+                videoControllerView.isShowing() &&
+                videoControllerView.isPlaying()) {
+            // Land on the frame where the displayed second changes
+            float speed = videoControllerView.getPlaybackSpeed();
+            long delayMs = Constants.ONE_SECOND_MILLISECONDS
+                    - (position % Constants.ONE_SECOND_MILLISECONDS);
+            if (speed > 0) {
+                delayMs = (long) (delayMs / speed);
+            }
+            getChoreographer().postFrameCallbackDelayed(this, delayMs);
+            isFrameCallbackPosted = true;
+        }
+    }
+
+    /**
+     * Stops refreshing the progress and destroys references.
+     * Called when a view is detached or destroyed.
+     */
+    void onDestroy() {
+        stop();
+        videoControllerView = null;
+    }
+
+    private Choreographer getChoreographer() {
+        if (choreographer == null) {
+            choreographer = Choreographer.getInstance();
+        }
+        return choreographer;
+    }
+}
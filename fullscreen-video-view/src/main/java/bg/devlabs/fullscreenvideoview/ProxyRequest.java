@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An HTTP request received by {@link VideoCacheProxy} from the media player.
+ */
+class ProxyRequest {
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    /**
+     * The upstream URL of the video.
+     */
+    final String url;
+
+    /**
+     * Indicates whether only the headers of the response are requested.
+     */
+    final boolean isHead;
+
+    /**
+     * The first requested byte or -1 when a suffix range or no range is requested.
+     */
+    final long rangeStart;
+
+    /**
+     * The last requested byte or -1 when the range is open ended.
+     */
+    final long rangeEnd;
+
+    private ProxyRequest(String url, boolean isHead, long rangeStart, long rangeEnd) {
+        this.url = url;
+        this.isHead = isHead;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+    }
+
+    boolean hasRange() {
+        return rangeStart != -1 || rangeEnd != -1;
+    }
+
+    /**
+     * Resolves the first byte of the response.
+     *
+     * @param length the length of the video in bytes
+     * @return the first byte to send
+     */
+    long resolveStart(long length) {
+        if (rangeStart == -1 && rangeEnd != -1) {
+            // Suffix range - the last rangeEnd bytes
+            return Math.max(0, length - rangeEnd);
+        }
+
+        return Math.max(0, rangeStart);
+    }
+
+    /**
+     * Resolves the last byte of the response.
+     *
+     * @param length the length of the video in bytes
+     * @return the last byte to send
+     */
+    long resolveEnd(long length) {
+        if (rangeStart == -1 || rangeEnd == -1) {
+            return length - 1;
+        }
+
+        return Math.min(rangeEnd, length - 1);
+    }
+
+    /**
+     * Reads the request line and the headers of a request.
+     *
+     * @param inputStream the socket input stream
+     * @return the request or null if the request is malformed
+     * @throws IOException if the socket could not be read
+     */
+    @Nullable
+    static ProxyRequest read(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+        String requestLine = reader.readLine();
+        if (requestLine == null) {
+            return null;
+        }
+
+        // GET /<encoded url> HTTP/1.1
+        String[] parts = requestLine.split(" ");
+        if (parts.length < 2 || parts[1].length() < 2) {
+            return null;
+        }
+
+        String url = decode(parts[1].substring(1));
+        if (url == null) {
+            return null;
+        }
+
+        long rangeStart = -1;
+        long rangeEnd = -1;
+        String header;
+        while ((header = reader.readLine()) != null && !header.isEmpty()) {
+            int separator = header.indexOf(':');
+            if (separator == -1) {
+                continue;
+            }
+
+            String name = header.substring(0, separator).trim().toLowerCase(Locale.US);
+            if (!name.equals("range")) {
+                continue;
+            }
+
+            Matcher matcher = RANGE_PATTERN.matcher(header.substring(separator + 1).trim());
+            if (matcher.matches()) {
+                String start = matcher.group(1);
+                String end = matcher.group(2);
+                try {
+                    rangeStart = start.isEmpty() ? -1 : Long.parseLong(start);
+                    rangeEnd = end.isEmpty() ? -1 : Long.parseLong(end);
+                } catch (NumberFormatException exception) {
+                    // The range does not fit in a long
+                    return null;
+                }
+            }
+        }
+
+        return new ProxyRequest(url, "HEAD".equals(parts[0]), rangeStart, rangeEnd);
+    }
+
+    @Nullable
+    private static String decode(String encodedUrl) {
+        try {
+            return URLDecoder.decode(encodedUrl, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException exception) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A persistent store of the playback positions to resume the videos from, shared by all
+ * FullscreenVideoView instances.
+ * <p>
+ * The store is a memory-mapped file holding an open addressing hash table of fixed-size binary
+ * records, so a lookup or a write touches a few bytes without reading or rewriting the whole
+ * file. Each record holds the 64-bit hash of the video URL or file path, the position and
+ * the time of the last update. The file starts with a small table, so opening it stays cheap
+ * on the main thread. The table is doubled when it would become more than half full or when all
+ * slots probed for a new video are taken, which keeps the probe sequences short. It holds up to
+ * 262144 records, so about 131072 videos before it stops growing. Only a full table replaces
+ * the least recently updated of the probed records, removed ones first. The writes go to the
+ * page cache of the mapping, so they survive the death of the process without an explicit
+ * flush.
+ */
+@SuppressWarnings("unused")
+public class ResumePositionStore {
+    public static final int NO_POSITION = -1;
+
+    private static final String TAG = "ResumePositionStore";
+    private static final String FILE_NAME = "fullscreen-video-resume-positions.bin";
+    private static final int MAGIC = 0x46565250;
+    private static final int VERSION = 3;
+    // The magic, the version, the capacity and the number of taken slots
+    private static final int HEADER_SIZE = 16;
+    private static final int SIZE_OFFSET = 12;
+    // The key hash, the position in milliseconds and the update time in seconds
+    private static final int RECORD_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 18;
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+    private static final int MAX_PROBES = 8;
+    private static final long EMPTY_KEY = 0L;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static ResumePositionStore instance;
+
+    private final File file;
+    @Nullable
+    private MappedByteBuffer buffer;
+    private int capacity;
+    // The number of taken slots, including the ones of the removed positions
+    private int size;
+    private boolean isFailed;
+
+    ResumePositionStore(File file) {
+        this.file = file;
+    }
+
+    public static synchronized ResumePositionStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ResumePositionStore(
+                    new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the saved position of a video.
+     *
+     * @param source the video URL or file path
+     * @return the position in milliseconds or {@link #NO_POSITION} if none is saved
+     */
+    public synchronized int getPosition(String source) {
+        MappedByteBuffer buffer = getBuffer();
+        if (buffer == null) {
+            return NO_POSITION;
+        }
+
+        int offset = find(buffer, capacity, hash(source));
+        return offset != -1 ? buffer.getInt(offset + 8) : NO_POSITION;
+    }
+
+    /**
+     * Saves the position of a video.
+     *
+     * @param source     the video URL or file path
+     * @param positionMs the position in milliseconds
+     */
+    public synchronized void setPosition(String source, int positionMs) {
+        MappedByteBuffer buffer = getBuffer();
+        if (buffer == null) {
+            return;
+        }
+
+        long key = hash(source);
+        int updateTime = (int) (System.currentTimeMillis() / 1000);
+        int offset = find(buffer, capacity, key);
+        if (offset != -1) {
+            buffer.putInt(offset + 8, positionMs);
+            buffer.putInt(offset + 12, updateTime);
+            return;
+        }
+
+        if (size + 1 > capacity * MAX_LOAD_FACTOR && capacity < MAX_CAPACITY) {
+            buffer = grow(buffer);
+            if (buffer == null) {
+                return;
+            }
+        }
+
+        offset = findEmptySlot(buffer, capacity, key);
+        while (offset == -1 && capacity < MAX_CAPACITY) {
+            buffer = grow(buffer);
+            if (buffer == null) {
+                return;
+            }
+            offset = findEmptySlot(buffer, capacity, key);
+        }
+
+        if (offset != -1) {
+            size++;
+            buffer.putInt(SIZE_OFFSET, size);
+        } else {
+            // The table is full
+            offset = findOldestSlot(buffer, capacity, key);
+        }
+        putRecord(buffer, offset, key, positionMs, updateTime);
+    }
+
+    /**
+     * Removes the saved position of a video, for example when it has been watched to the end.
+     *
+     * @param source the video URL or file path
+     */
+    public synchronized void remove(String source) {
+        MappedByteBuffer buffer = getBuffer();
+        if (buffer == null) {
+            return;
+        }
+
+        int offset = find(buffer, capacity, hash(source));
+        if (offset != -1) {
+            // Keep the slot taken, so that the probe sequences of other videos are not broken
+            buffer.putInt(offset + 8, NO_POSITION);
+            buffer.putInt(offset + 12, 0);
+        }
+    }
+
+    /**
+     * Removes all saved positions.
+     */
+    public synchronized void clear() {
+        if (getBuffer() == null) {
+            return;
+        }
+
+        // The old mapping must not be used once the file is truncated
+        buffer = null;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            resize(randomAccessFile, INITIAL_CAPACITY);
+            buffer = map(randomAccessFile, INITIAL_CAPACITY);
+            capacity = INITIAL_CAPACITY;
+            size = 0;
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not clear the resume positions", exception);
+            isFailed = true;
+        }
+    }
+
+    /**
+     * Finds the record of a key in its probe sequence.
+     *
+     * @return the offset of the record or -1 if it's not found
+     */
+    static int find(ByteBuffer buffer, int capacity, long key) {
+        int slot = (int) (key & (capacity - 1));
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = HEADER_SIZE + ((slot + probe) & (capacity - 1)) * RECORD_SIZE;
+            long slotKey = buffer.getLong(offset);
+            if (slotKey == key) {
+                return offset;
+            }
+            if (slotKey == EMPTY_KEY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds an empty slot in the probe sequence of a key.
+     *
+     * @return the offset of the slot or -1 if all probed slots are taken
+     */
+    static int findEmptySlot(ByteBuffer buffer, int capacity, long key) {
+        int slot = (int) (key & (capacity - 1));
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = HEADER_SIZE + ((slot + probe) & (capacity - 1)) * RECORD_SIZE;
+            if (buffer.getLong(offset) == EMPTY_KEY) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the least recently updated slot in the probe sequence of a key.
+     */
+    static int findOldestSlot(ByteBuffer buffer, int capacity, long key) {
+        int slot = (int) (key & (capacity - 1));
+        int oldestOffset = -1;
+        int oldestTime = Integer.MAX_VALUE;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = HEADER_SIZE + ((slot + probe) & (capacity - 1)) * RECORD_SIZE;
+            int updateTime = buffer.getInt(offset + 12);
+            if (updateTime < oldestTime) {
+                oldestTime = updateTime;
+                oldestOffset = offset;
+            }
+        }
+        return oldestOffset;
+    }
+
+    private static void putRecord(ByteBuffer buffer, int offset, long key, int positionMs,
+                                  int updateTime) {
+        // Write the key last, so that a torn record is never found
+        buffer.putLong(offset, EMPTY_KEY);
+        buffer.putInt(offset + 8, positionMs);
+        buffer.putInt(offset + 12, updateTime);
+        buffer.putLong(offset, key);
+    }
+
+    @Nullable
+    private MappedByteBuffer getBuffer() {
+        if (buffer != null || isFailed) {
+            return buffer;
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            int fileCapacity = readCapacity(randomAccessFile);
+            if (fileCapacity == -1) {
+                // A new file or one of another version
+                fileCapacity = INITIAL_CAPACITY;
+                resize(randomAccessFile, fileCapacity);
+            }
+            buffer = map(randomAccessFile, fileCapacity);
+            capacity = fileCapacity;
+            size = buffer.getInt(SIZE_OFFSET);
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not map the resume positions", exception);
+            isFailed = true;
+        }
+        return buffer;
+    }
+
+    /**
+     * Doubles the capacity of the table and inserts the saved positions again. The removed
+     * ones are dropped. The capacity is doubled again if a probe sequence overflows.
+     *
+     * @return the new mapping or null if the file could not be grown
+     */
+    @Nullable
+    private MappedByteBuffer grow(MappedByteBuffer oldBuffer) {
+        int oldCapacity = capacity;
+        long[] keys = new long[oldCapacity];
+        int[] positions = new int[oldCapacity];
+        int[] updateTimes = new int[oldCapacity];
+        int count = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            int offset = HEADER_SIZE + i * RECORD_SIZE;
+            long key = oldBuffer.getLong(offset);
+            int positionMs = oldBuffer.getInt(offset + 8);
+            if (key != EMPTY_KEY && positionMs != NO_POSITION) {
+                keys[count] = key;
+                positions[count] = positionMs;
+                updateTimes[count] = oldBuffer.getInt(offset + 12);
+                count++;
+            }
+        }
+
+        // The old mapping must not be used once the file is truncated
+        buffer = null;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            int newCapacity = oldCapacity;
+            boolean isOverflowed = true;
+            while (isOverflowed && newCapacity < MAX_CAPACITY) {
+                newCapacity *= 2;
+                resize(randomAccessFile, newCapacity);
+                MappedByteBuffer newBuffer = map(randomAccessFile, newCapacity);
+                // Invalidate the header until all records are inserted, so a torn table is reset
+                newBuffer.putInt(0, 0);
+                isOverflowed = false;
+                for (int i = 0; i < count; i++) {
+                    int offset = findEmptySlot(newBuffer, newCapacity, keys[i]);
+                    if (offset == -1) {
+                        isOverflowed = true;
+                        offset = findOldestSlot(newBuffer, newCapacity, keys[i]);
+                    }
+                    putRecord(newBuffer, offset, keys[i], positions[i], updateTimes[i]);
+                }
+                newBuffer.putInt(SIZE_OFFSET, count);
+                newBuffer.putInt(0, MAGIC);
+                buffer = newBuffer;
+                capacity = newCapacity;
+                size = count;
+            }
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not grow the resume positions", exception);
+            isFailed = true;
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads the capacity of the table from the header of the file.
+     *
+     * @return the capacity or -1 if the file is not a valid table
+     */
+    private static int readCapacity(RandomAccessFile randomAccessFile) throws IOException {
+        if (randomAccessFile.length() < HEADER_SIZE) {
+            return -1;
+        }
+
+        randomAccessFile.seek(0);
+        int magic = randomAccessFile.readInt();
+        int version = randomAccessFile.readInt();
+        int fileCapacity = randomAccessFile.readInt();
+        boolean isValidCapacity = fileCapacity >= INITIAL_CAPACITY
+                && fileCapacity <= MAX_CAPACITY
+                && Integer.bitCount(fileCapacity) == 1;
+        if (magic != MAGIC || version != VERSION || !isValidCapacity
+                || randomAccessFile.length() != getFileSize(fileCapacity)) {
+            return -1;
+        }
+        return fileCapacity;
+    }
+
+    /**
+     * Truncates the file and extends it to an empty table, which the file system fills with
+     * zeros without writing them.
+     */
+    private static void resize(RandomAccessFile randomAccessFile, int newCapacity)
+            throws IOException {
+        randomAccessFile.setLength(0);
+        randomAccessFile.setLength(getFileSize(newCapacity));
+        randomAccessFile.seek(0);
+        randomAccessFile.writeInt(MAGIC);
+        randomAccessFile.writeInt(VERSION);
+        randomAccessFile.writeInt(newCapacity);
+    }
+
+    private static MappedByteBuffer map(RandomAccessFile randomAccessFile, int fileCapacity)
+            throws IOException {
+        // The mapping stays valid after the file is closed
+        return randomAccessFile.getChannel()
+                .map(FileChannel.MapMode.READ_WRITE, 0, getFileSize(fileCapacity));
+    }
+
+    private static long getFileSize(int fileCapacity) {
+        return HEADER_SIZE + (long) fileCapacity * RECORD_SIZE;
+    }
+
+    /**
+     * Hashes a source with 64-bit FNV-1a. Zero marks an empty slot, so it's never returned.
+     */
+    static long hash(String source) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash != EMPTY_KEY ? hash : 1L;
+    }
+}
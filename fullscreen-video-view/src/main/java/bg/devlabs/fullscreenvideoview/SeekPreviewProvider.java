@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Provides the preview images shown above the SeekBar while it's dragged.
+ * The methods are called on the main thread.
+ */
+interface SeekPreviewProvider {
+
+    /**
+     * Called on the main thread when a requested preview is loaded.
+     */
+    interface Callback {
+
+        /**
+         * @param positionMs the requested position in milliseconds
+         * @param preview    the preview or null if the position has none
+         */
+        void onPreviewLoaded(int positionMs, @Nullable Bitmap preview);
+    }
+
+    /**
+     * Requests the preview of a position. A new request replaces the pending one.
+     *
+     * @param positionMs the position in milliseconds
+     * @param callback   the callback for the loaded preview
+     */
+    void requestPreview(int positionMs, Callback callback);
+
+    /**
+     * Loads the previews around a position in advance, so that dragging from it shows them
+     * immediately.
+     *
+     * @param positionMs the position in milliseconds
+     */
+    void prefetch(int positionMs);
+
+    /**
+     * Cancels the pending request, if any.
+     */
+    void cancel();
+
+    /**
+     * Releases the resources of the provider. It's not used afterwards.
+     */
+    void release();
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.media.MediaPlayer;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Schedules the seeks of a media player, so that at most one seek is in flight at a time.
+ * <p>
+ * While a seek is in flight the requested positions are collapsed to the latest one. Seeks
+ * during a drag or a burst of skip taps go to the previous sync frame, which is fast, and one
+ * precise seek is issued when the drag or the burst ends.
+ */
+class SeekScheduler {
+    private static final int TAP_BURST_TIMEOUT_MILLIS = 300;
+    private static final int NO_POSITION = -1;
+
+    private final MediaPlayer mediaPlayer;
+    private final PlayerStateMirror stateMirror;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private boolean isSeekInFlight;
+    private int inFlightPositionMs = NO_POSITION;
+    private long inFlightStartTime;
+    private int pendingPositionMs = NO_POSITION;
+    private boolean isPendingPrecise;
+    private int targetPositionMs = NO_POSITION;
+    private boolean isTapBurstActive;
+
+    private final Runnable tapBurstEndRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isTapBurstActive = false;
+            if (targetPositionMs != NO_POSITION) {
+                seekTo(targetPositionMs, true);
+            }
+        }
+    };
+
+    SeekScheduler(MediaPlayer mediaPlayer, PlayerStateMirror stateMirror) {
+        this.mediaPlayer = mediaPlayer;
+        this.stateMirror = stateMirror;
+    }
+
+    /**
+     * Seeks to a position or schedules the seek if there is one in flight.
+     *
+     * @param positionMs the position in milliseconds
+     * @param isPrecise  true to seek to the exact frame, false to seek to the previous sync frame
+     */
+    void seekTo(int positionMs, boolean isPrecise) {
+        targetPositionMs = positionMs;
+        if (isSeekInFlight) {
+            pendingPositionMs = positionMs;
+            isPendingPrecise = isPrecise;
+            return;
+        }
+
+        issueSeek(positionMs, isPrecise);
+    }
+
+    /**
+     * Seeks relatively to the latest requested position, so that repeated taps add up even if
+     * the previous seeks have not completed yet.
+     *
+     * @param offsetMs the offset in milliseconds
+     */
+    void seekBy(int offsetMs) {
+        int basePositionMs = targetPositionMs != NO_POSITION
+                ? targetPositionMs
+                : stateMirror.getCurrentPosition();
+        int positionMs = Math.max(0, basePositionMs + offsetMs);
+        int durationMs = stateMirror.getDuration();
+        if (durationMs > 0) {
+            positionMs = Math.min(positionMs, durationMs);
+        }
+
+        seekTo(positionMs, false);
+        // The precise seek is issued when no more taps come
+        isTapBurstActive = true;
+        handler.removeCallbacks(tapBurstEndRunnable);
+        handler.postDelayed(tapBurstEndRunnable, TAP_BURST_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Called when the media player completes a seek.
+     *
+     * @return the latency of the completed seek in milliseconds or -1 if the seek was not
+     * issued by this scheduler
+     */
+    long onSeekComplete() {
+        if (!isSeekInFlight) {
+            return -1;
+        }
+
+        isSeekInFlight = false;
+        long latencyMs = SystemClock.elapsedRealtime() - inFlightStartTime;
+
+        if (pendingPositionMs != NO_POSITION) {
+            int positionMs = pendingPositionMs;
+            pendingPositionMs = NO_POSITION;
+            issueSeek(positionMs, isPendingPrecise);
+        } else if (!isTapBurstActive) {
+            targetPositionMs = NO_POSITION;
+        }
+
+        return latencyMs;
+    }
+
+    /**
+     * Gets the position of the last issued seek.
+     *
+     * @return the position in milliseconds
+     */
+    int getInFlightPositionMs() {
+        return inFlightPositionMs;
+    }
+
+    /**
+     * Gets the latest requested position.
+     *
+     * @return the position in milliseconds or -1 if there are no scheduled seeks
+     */
+    int getTargetPositionMs() {
+        return targetPositionMs;
+    }
+
+    /**
+     * Drops all scheduled seeks. Called when the media player is reset or released.
+     */
+    void reset() {
+        handler.removeCallbacks(tapBurstEndRunnable);
+        isTapBurstActive = false;
+        isSeekInFlight = false;
+        pendingPositionMs = NO_POSITION;
+        targetPositionMs = NO_POSITION;
+    }
+
+    private void issueSeek(int positionMs, boolean isPrecise) {
+        isSeekInFlight = true;
+        inFlightPositionMs = positionMs;
+        inFlightStartTime = SystemClock.elapsedRealtime();
+        stateMirror.onSeekRequested(positionMs);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            int mode = isPrecise ? MediaPlayer.SEEK_CLOSEST : MediaPlayer.SEEK_PREVIOUS_SYNC;
+            mediaPlayer.seekTo(positionMs, mode);
+        } else {
+            mediaPlayer.seekTo(positionMs);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * A process-wide memory cache of the decoded thumbnails, keyed by their source and the size
+ * they were decoded for.
+ * <p>
+ * Bitmaps evicted from the cache are kept for reuse by the next decoding once no thumbnail view
+ * shows them. Except for {@link #takeReusableBitmap(int)}, the cache is used on the main thread.
+ */
+class ThumbnailCache {
+    private static final int MAX_REUSABLE_BITMAPS = 4;
+    // Use up to 1/16 of the heap for the thumbnails
+    private static final int MEMORY_CACHE_FRACTION = 16;
+    private static final int BYTES_IN_KILOBYTE = 1024;
+
+    private static ThumbnailCache instance;
+
+    private final LruCache<String, Bitmap> memoryCache;
+    // Bitmap does not override equals(), so the bitmaps are compared by identity
+    private final HashMap<Bitmap, Integer> displayCounts = new HashMap<>();
+    private final HashSet<Bitmap> evictedDisplayedBitmaps = new HashSet<>();
+    private final ArrayList<Bitmap> reusableBitmaps = new ArrayList<>();
+
+    private ThumbnailCache() {
+        long maxMemoryKb = Runtime.getRuntime().maxMemory() / BYTES_IN_KILOBYTE;
+        memoryCache = new LruCache<String, Bitmap>((int) (maxMemoryKb / MEMORY_CACHE_FRACTION)) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return Math.max(1, bitmap.getAllocationByteCount() / BYTES_IN_KILOBYTE);
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted,
+                                        String key,
+                                        Bitmap oldBitmap,
+                                        Bitmap newBitmap) {
+                if (displayCounts.containsKey(oldBitmap)) {
+                    // Reuse it once it's not shown anymore
+                    evictedDisplayedBitmaps.add(oldBitmap);
+                } else {
+                    addReusableBitmap(oldBitmap);
+                }
+            }
+        };
+    }
+
+    static synchronized ThumbnailCache getInstance() {
+        if (instance == null) {
+            instance = new ThumbnailCache();
+        }
+        return instance;
+    }
+
+    static String keyFor(Object source, int width, int height) {
+        return source + ":" + width + "x" + height;
+    }
+
+    @Nullable
+    Bitmap get(String key) {
+        return memoryCache.get(key);
+    }
+
+    void put(String key, Bitmap bitmap) {
+        memoryCache.put(key, bitmap);
+    }
+
+    /**
+     * Marks a bitmap as shown by a thumbnail view, so that it's not reused for decoding.
+     *
+     * @param bitmap the shown bitmap
+     */
+    void onDisplayed(Bitmap bitmap) {
+        Integer count = displayCounts.get(bitmap);
+        displayCounts.put(bitmap, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Marks a bitmap as no longer shown by a thumbnail view.
+     *
+     * @param bitmap the bitmap which was shown
+     */
+    void onHidden(Bitmap bitmap) {
+        Integer count = displayCounts.get(bitmap);
+        if (count == null) {
+            return;
+        }
+
+        if (count > 1) {
+            displayCounts.put(bitmap, count - 1);
+            return;
+        }
+
+        displayCounts.remove(bitmap);
+        if (evictedDisplayedBitmaps.remove(bitmap)) {
+            addReusableBitmap(bitmap);
+        }
+    }
+
+    /**
+     * Takes a bitmap which can be reused for decoding an image.
+     *
+     * @param byteCount the number of bytes of the decoded image
+     * @return a bitmap with at least byteCount bytes or null if there is none
+     */
+    @Nullable
+    synchronized Bitmap takeReusableBitmap(int byteCount) {
+        for (int i = 0; i < reusableBitmaps.size(); i++) {
+            Bitmap bitmap = reusableBitmaps.get(i);
+            if (bitmap.getAllocationByteCount() >= byteCount) {
+                return reusableBitmaps.remove(i);
+            }
+        }
+        return null;
+    }
+
+    private synchronized void addReusableBitmap(Bitmap bitmap) {
+        // Hardware and immutable bitmaps can't be decoded into
+        if (!bitmap.isMutable() || bitmap.isRecycled()) {
+            return;
+        }
+
+        if (reusableBitmaps.size() >= MAX_REUSABLE_BITMAPS) {
+            reusableBitmaps.remove(0);
+        }
+        reusableBitmaps.add(bitmap);
+    }
+}
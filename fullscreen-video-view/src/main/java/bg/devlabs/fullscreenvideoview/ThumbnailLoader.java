@@ -0,0 +1,318 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.View;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the thumbnail of a FullscreenVideoView.
+ * <p>
+ * The thumbnail is decoded on a background thread to the measured size of the thumbnail view and
+ * cached in the process-wide {@link ThumbnailCache}. Remote thumbnails are downloaded to a disk
+ * cache first. Views requesting the same thumbnail at the same size share one request. Loading
+ * another thumbnail or clearing it cancels the pending one.
+ */
+class ThumbnailLoader {
+    private static final String TAG = "ThumbnailLoader";
+    private static final String DECODER_THREAD_NAME = "FullscreenVideoThumbnail";
+    private static final String DOWNLOADER_THREAD_NAME = "FullscreenVideoPoster";
+    private static final int DOWNLOADER_THREAD_COUNT = 2;
+
+    // The pending requests by their cache key, only accessed on the main thread
+    private static final HashMap<String, Request> pendingRequests = new HashMap<>();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    @Nullable
+    private static ExecutorService decoderExecutor;
+    @Nullable
+    private static ExecutorService downloaderExecutor;
+
+    private final ImageView imageView;
+
+    @Nullable
+    private Request pendingRequest;
+    @Nullable
+    private View.OnLayoutChangeListener pendingLayoutListener;
+    @Nullable
+    private Bitmap displayedBitmap;
+
+    ThumbnailLoader(ImageView imageView) {
+        this.imageView = imageView;
+    }
+
+    /**
+     * Loads a thumbnail from a drawable resource.
+     *
+     * @param resId the resource id of the image
+     */
+    void load(@DrawableRes final int resId) {
+        final Resources resources = imageView.getResources();
+        load("resource:" + resId, false, new Decoder() {
+            @Nullable
+            @Override
+            public Bitmap decode(int width, int height) {
+                return BitmapScaler.decodeResource(resources, resId, width, height);
+            }
+        });
+    }
+
+    /**
+     * Loads a thumbnail from an image file.
+     *
+     * @param file the image file
+     */
+    void load(final File file) {
+        load("file:" + file.getPath(), false, new Decoder() {
+            @Nullable
+            @Override
+            public Bitmap decode(int width, int height) {
+                return BitmapScaler.decodeFile(file, width, height);
+            }
+        });
+    }
+
+    /**
+     * Loads a thumbnail from an URL. The downloaded image is kept in a disk cache.
+     *
+     * @param url the URL of the image
+     */
+    void load(final String url) {
+        final Context context = imageView.getContext().getApplicationContext();
+        load("url:" + url, true, new Decoder() {
+            @Nullable
+            @Override
+            public Bitmap decode(int width, int height) throws IOException {
+                File file = PosterDownloader.download(context, url);
+                return BitmapScaler.decodeFile(file, width, height);
+            }
+        });
+    }
+
+    /**
+     * Cancels the pending thumbnail, if any.
+     */
+    void cancel() {
+        if (pendingRequest != null) {
+            pendingRequest.removeLoader(this);
+            pendingRequest = null;
+        }
+
+        if (pendingLayoutListener != null) {
+            imageView.removeOnLayoutChangeListener(pendingLayoutListener);
+            pendingLayoutListener = null;
+        }
+    }
+
+    /**
+     * Cancels the pending thumbnail and removes the shown one.
+     */
+    void clear() {
+        cancel();
+        display(null);
+    }
+
+    /**
+     * Loads a thumbnail when the thumbnail view is measured, from the memory cache or with
+     * the decoder.
+     */
+    private void load(final String source, final boolean isRemote, final Decoder decoder) {
+        cancel();
+        int width = imageView.getWidth();
+        int height = imageView.getHeight();
+        if (width == 0 || height == 0) {
+            pendingLayoutListener = new View.OnLayoutChangeListener() {
+                @Override
+                public void onLayoutChange(View view,
+                                           int left, int top, int right, int bottom,
+                                           int oldLeft, int oldTop, int oldRight, int oldBottom) {
+                    if (right - left == 0 || bottom - top == 0) {
+                        return;
+                    }
+
+                    view.removeOnLayoutChangeListener(this);
+                    pendingLayoutListener = null;
+                    load(source, isRemote, decoder);
+                }
+            };
+            imageView.addOnLayoutChangeListener(pendingLayoutListener);
+            return;
+        }
+
+        String key = ThumbnailCache.keyFor(source, width, height);
+        Bitmap cachedBitmap = ThumbnailCache.getInstance().get(key);
+        if (cachedBitmap != null) {
+            display(cachedBitmap);
+            return;
+        }
+
+        Request request = pendingRequests.get(key);
+        if (request == null) {
+            request = new Request(key);
+            pendingRequests.put(key, request);
+            ExecutorService executor = isRemote ? getDownloaderExecutor() : getDecoderExecutor();
+            request.future = executor.submit(request.newTask(decoder, width, height));
+        }
+        request.loaders.add(this);
+        pendingRequest = request;
+    }
+
+    private void onLoaded(Request request, @Nullable Bitmap bitmap) {
+        if (pendingRequest != request) {
+            return;
+        }
+
+        pendingRequest = null;
+        if (bitmap != null) {
+            display(bitmap);
+        }
+    }
+
+    private void display(@Nullable Bitmap bitmap) {
+        ThumbnailCache thumbnailCache = ThumbnailCache.getInstance();
+        if (bitmap != null) {
+            thumbnailCache.onDisplayed(bitmap);
+            imageView.setImageBitmap(bitmap);
+        } else {
+            imageView.setImageDrawable(null);
+        }
+        if (displayedBitmap != null) {
+            thumbnailCache.onHidden(displayedBitmap);
+        }
+        displayedBitmap = bitmap;
+    }
+
+    private static synchronized ExecutorService getDecoderExecutor() {
+        if (decoderExecutor == null) {
+            // A single thread, so the decoded images are not competing for the heap
+            decoderExecutor = Executors.newSingleThreadExecutor(runnable ->
+                    newBackgroundThread(runnable, DECODER_THREAD_NAME));
+        }
+        return decoderExecutor;
+    }
+
+    private static synchronized ExecutorService getDownloaderExecutor() {
+        if (downloaderExecutor == null) {
+            downloaderExecutor = Executors.newFixedThreadPool(DOWNLOADER_THREAD_COUNT, runnable ->
+                    newBackgroundThread(runnable, DOWNLOADER_THREAD_NAME));
+        }
+        return downloaderExecutor;
+    }
+
+    private static Thread newBackgroundThread(final Runnable runnable, String name) {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Decodes a thumbnail on a background thread.
+     */
+    private interface Decoder {
+
+        @Nullable
+        Bitmap decode(int width, int height) throws IOException;
+    }
+
+    /**
+     * A thumbnail being loaded for one or more views.
+     */
+    private static class Request {
+        final String key;
+        final ArrayList<ThumbnailLoader> loaders = new ArrayList<>();
+        @Nullable
+        Future<?> future;
+
+        Request(String key) {
+            this.key = key;
+        }
+
+        Runnable newTask(final Decoder decoder, final int width, final int height) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    Bitmap bitmap = null;
+                    try {
+                        bitmap = decoder.decode(width, height);
+                    } catch (IOException exception) {
+                        Log.w(TAG, "Could not load the thumbnail " + key, exception);
+                    }
+
+                    final Bitmap loadedBitmap = bitmap;
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onFinished(loadedBitmap);
+                        }
+                    });
+                }
+            };
+        }
+
+        void removeLoader(ThumbnailLoader loader) {
+            loaders.remove(loader);
+            if (!loaders.isEmpty()) {
+                return;
+            }
+
+            // Nobody waits for the thumbnail anymore
+            if (future != null) {
+                future.cancel(true);
+            }
+            if (pendingRequests.get(key) == this) {
+                pendingRequests.remove(key);
+            }
+        }
+
+        private void onFinished(@Nullable Bitmap bitmap) {
+            if (pendingRequests.get(key) == this) {
+                pendingRequests.remove(key);
+            }
+
+            if (bitmap != null) {
+                // Cache it even if the request was cancelled in the meantime
+                ThumbnailCache.getInstance().put(key, bitmap);
+            }
+
+            for (int i = 0; i < loaders.size(); i++) {
+                loaders.get(i).onLoaded(this, bitmap);
+            }
+            loaders.clear();
+        }
+    }
+}
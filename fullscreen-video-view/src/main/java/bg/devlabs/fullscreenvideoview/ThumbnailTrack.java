@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A WebVTT thumbnail track, which maps time ranges of a video to regions of sprite sheet images.
+ * <pre>
+ * WEBVTT
+ *
+ * 00:00:00.000 --> 00:00:05.000
+ * sprite-1.jpg#xywh=0,0,160,90
+ * </pre>
+ * The cues are sorted by their start time, so that the cue of a position is found with
+ * a binary search.
+ */
+class ThumbnailTrack {
+    private static final String CUE_SEPARATOR = "-->";
+    private static final String REGION_FRAGMENT = "#xywh=";
+    private static final Pattern TIMESTAMP_PATTERN =
+            Pattern.compile("(?:(\\d+):)?(\\d{1,2}):(\\d{2})[.,](\\d{3})");
+    private static final Pattern REGION_PATTERN =
+            Pattern.compile("(\\d+),(\\d+),(\\d+),(\\d+)");
+
+    /**
+     * A time range of the video and its image.
+     */
+    static class Cue {
+        final int startMs;
+        final int endMs;
+        /**
+         * The image URI as written in the track, relative to the track or absolute.
+         */
+        final String image;
+        /**
+         * The x, y, width and height of the region or null when the cue shows the whole image.
+         */
+        @Nullable
+        final int[] region;
+
+        Cue(int startMs, int endMs, String image, @Nullable int[] region) {
+            this.startMs = startMs;
+            this.endMs = endMs;
+            this.image = image;
+            this.region = region;
+        }
+    }
+
+    private final Cue[] cues;
+    private final int[] startTimes;
+
+    private ThumbnailTrack(Cue[] cues) {
+        this.cues = cues;
+        startTimes = new int[cues.length];
+        for (int i = 0; i < cues.length; i++) {
+            startTimes[i] = cues[i].startMs;
+        }
+    }
+
+    int size() {
+        return cues.length;
+    }
+
+    Cue getCue(int index) {
+        return cues[index];
+    }
+
+    /**
+     * Finds the cue of a position, which is the last cue starting at or before it, if
+     * the position is before the end of that cue.
+     *
+     * @param positionMs the position in milliseconds
+     * @return the index of the cue or -1 if no cue covers the position
+     */
+    int indexOf(int positionMs) {
+        if (cues.length == 0 || positionMs < startTimes[0]) {
+            return -1;
+        }
+
+        int index = indexOfNearest(positionMs);
+        // The position is in a gap between the cues or past the last one
+        return positionMs < cues[index].endMs ? index : -1;
+    }
+
+    /**
+     * Finds the last cue starting at or before a position, or the first cue if the position
+     * is before it.
+     *
+     * @param positionMs the position in milliseconds
+     * @return the index of the cue or -1 if the track is empty
+     */
+    int indexOfNearest(int positionMs) {
+        if (cues.length == 0) {
+            return -1;
+        }
+
+        int index = Arrays.binarySearch(startTimes, positionMs);
+        if (index < 0) {
+            // The insertion point is the first cue starting after the position
+            index = -index - 2;
+        }
+        return Math.max(0, index);
+    }
+
+    /**
+     * Parses a WebVTT thumbnail track. Cues which are malformed are skipped.
+     *
+     * @param inputStream the track input stream
+     * @return the parsed track
+     * @throws IOException if the track could not be read or it's not a WebVTT file
+     */
+    static ThumbnailTrack parse(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+        String header = reader.readLine();
+        if (header == null || !header.replace("\uFEFF", "").startsWith("WEBVTT")) {
+            throw new IOException("The thumbnail track is not a WebVTT file");
+        }
+
+        List<Cue> cues = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int separator = line.indexOf(CUE_SEPARATOR);
+            if (separator == -1) {
+                // A cue identifier, a note or an empty line
+                continue;
+            }
+
+            int startMs = parseTimestamp(line.substring(0, separator));
+            int endMs = parseTimestamp(line.substring(separator + CUE_SEPARATOR.length()));
+            String payload = reader.readLine();
+            if (startMs == -1 || endMs == -1 || payload == null || payload.trim().isEmpty()) {
+                continue;
+            }
+
+            cues.add(parseCue(startMs, endMs, payload.trim()));
+        }
+
+        Collections.sort(cues, new Comparator<Cue>() {
+            @Override
+            public int compare(Cue first, Cue second) {
+                return Integer.compare(first.startMs, second.startMs);
+            }
+        });
+        return new ThumbnailTrack(cues.toArray(new Cue[0]));
+    }
+
+    private static Cue parseCue(int startMs, int endMs, String payload) {
+        int fragment = payload.indexOf(REGION_FRAGMENT);
+        if (fragment == -1) {
+            return new Cue(startMs, endMs, payload, null);
+        }
+
+        Matcher matcher = REGION_PATTERN.matcher(
+                payload.substring(fragment + REGION_FRAGMENT.length()));
+        int[] region = null;
+        if (matcher.matches()) {
+            region = new int[4];
+            for (int i = 0; i < region.length; i++) {
+                region[i] = Integer.parseInt(matcher.group(i + 1));
+            }
+        }
+        return new Cue(startMs, endMs, payload.substring(0, fragment), region);
+    }
+
+    /**
+     * Parses a timestamp in the hh:mm:ss.ttt or mm:ss.ttt format, ignoring the cue settings
+     * after it.
+     *
+     * @return the timestamp in milliseconds or -1 if it's malformed
+     */
+    private static int parseTimestamp(String text) {
+        Matcher matcher = TIMESTAMP_PATTERN.matcher(text);
+        if (!matcher.find()) {
+            return -1;
+        }
+
+        String hours = matcher.group(1);
+        try {
+            long timestamp = (hours != null ? Long.parseLong(hours) : 0) * 3600000L
+                    + Long.parseLong(matcher.group(2)) * 60000L
+                    + Long.parseLong(matcher.group(3)) * 1000L
+                    + Long.parseLong(matcher.group(4));
+            return (int) Math.min(timestamp, Integer.MAX_VALUE);
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+}
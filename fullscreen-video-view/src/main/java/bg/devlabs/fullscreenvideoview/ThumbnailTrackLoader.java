@@ -0,0 +1,339 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the seek previews from a WebVTT thumbnail track and its sprite sheets.
+ * <p>
+ * The track is read once on a background priority thread and the cue of each dragged position
+ * is found with a binary search. Only the region of the sprite sheet which belongs to the cue is
+ * decoded, subsampled to the size of the preview, and the decoded tiles are kept in an LRU cache.
+ * Remote tracks and sprite sheets are downloaded to the thumbnail disk cache first.
+ * The latest request always goes before the older ones, which are dropped, and before
+ * the prefetched tiles.
+ */
+class ThumbnailTrackLoader implements SeekPreviewProvider {
+    private static final String TAG = "ThumbnailTrackLoader";
+    private static final String THREAD_NAME = "FullscreenVideoThumbnailTrack";
+    private static final int PREFETCH_CUES = 2;
+    private static final int MAX_CACHED_TILES = 64;
+    private static final int MAX_OPEN_DECODERS = 2;
+    private static final int NO_POSITION = -1;
+
+    private final Context context;
+    private final String trackSource;
+    private final int frameWidth;
+    private final LruCache<Integer, Bitmap> tiles = new LruCache<>(MAX_CACHED_TILES);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final HandlerThread thread;
+    private final Handler workerHandler;
+    private final AtomicInteger requestedPosition = new AtomicInteger(NO_POSITION);
+    private final AtomicInteger prefetchPosition = new AtomicInteger(NO_POSITION);
+    private final Runnable processRunnable = new Runnable() {
+        @Override
+        public void run() {
+            process();
+        }
+    };
+
+    // Written once on the worker thread
+    @Nullable
+    private volatile ThumbnailTrack track;
+
+    // Only accessed on the main thread
+    @Nullable
+    private Callback callback;
+    private int wantedPosition = NO_POSITION;
+
+    // Only accessed on the worker thread
+    private final LinkedHashMap<String, BitmapRegionDecoder> decoders =
+            new LinkedHashMap<>(MAX_OPEN_DECODERS, 0.75f, true);
+    private final ArrayDeque<Integer> prefetchCues = new ArrayDeque<>();
+    private boolean isFailed;
+
+    /**
+     * @param context     the context used to resolve the disk cache
+     * @param trackSource the URL or the file path of the WebVTT thumbnail track
+     * @param frameWidth  the width of the preview in pixels
+     */
+    ThumbnailTrackLoader(Context context, String trackSource, int frameWidth) {
+        this.context = context.getApplicationContext();
+        this.trackSource = trackSource;
+        this.frameWidth = frameWidth;
+        thread = new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        workerHandler = new Handler(thread.getLooper());
+    }
+
+    @Override
+    public void requestPreview(int positionMs, Callback callback) {
+        int position = Math.max(0, positionMs);
+        this.callback = callback;
+        wantedPosition = position;
+        ThumbnailTrack track = this.track;
+        if (track != null) {
+            int index = track.indexOf(position);
+            if (index == -1) {
+                // No cue covers the position, so it has no preview
+                requestedPosition.set(NO_POSITION);
+                callback.onPreviewLoaded(positionMs, null);
+                return;
+            }
+
+            Bitmap tile = tiles.get(index);
+            if (tile != null) {
+                requestedPosition.set(NO_POSITION);
+                callback.onPreviewLoaded(positionMs, tile);
+                return;
+            }
+        }
+
+        requestedPosition.set(position);
+        workerHandler.removeCallbacks(processRunnable);
+        workerHandler.post(processRunnable);
+    }
+
+    @Override
+    public void prefetch(int positionMs) {
+        prefetchPosition.set(Math.max(0, positionMs));
+        workerHandler.removeCallbacks(processRunnable);
+        workerHandler.post(processRunnable);
+    }
+
+    @Override
+    public void cancel() {
+        requestedPosition.set(NO_POSITION);
+        wantedPosition = NO_POSITION;
+        callback = null;
+    }
+
+    @Override
+    public void release() {
+        cancel();
+        prefetchPosition.set(NO_POSITION);
+        workerHandler.removeCallbacksAndMessages(null);
+        workerHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (BitmapRegionDecoder decoder : decoders.values()) {
+                    decoder.recycle();
+                }
+                decoders.clear();
+            }
+        });
+        thread.quitSafely();
+        tiles.evictAll();
+    }
+
+    /**
+     * Decodes the requested tile and then the prefetched ones, checking for a newer request
+     * before each of them. Runs on the worker thread.
+     */
+    private void process() {
+        ThumbnailTrack track = getTrack();
+        if (track == null || track.size() == 0) {
+            return;
+        }
+
+        while (true) {
+            int position = requestedPosition.get();
+            if (position != NO_POSITION) {
+                int index = track.indexOf(position);
+                Bitmap tile = index != -1 ? getTile(track, index) : null;
+                requestedPosition.compareAndSet(position, NO_POSITION);
+                if (index == -1 || tile != null) {
+                    deliver(track, index, tile);
+                }
+                continue;
+            }
+
+            int prefetch = prefetchPosition.getAndSet(NO_POSITION);
+            if (prefetch != NO_POSITION) {
+                // Also the positions without a cue prefetch the cues around them
+                int index = track.indexOfNearest(prefetch);
+                prefetchCues.clear();
+                prefetchCues.add(index);
+                for (int i = 1; i <= PREFETCH_CUES; i++) {
+                    if (index + i < track.size()) {
+                        prefetchCues.add(index + i);
+                    }
+                    if (index - i >= 0) {
+                        prefetchCues.add(index - i);
+                    }
+                }
+            }
+
+            Integer prefetchCue = prefetchCues.poll();
+            if (prefetchCue == null) {
+                return;
+            }
+            getTile(track, prefetchCue);
+        }
+    }
+
+    private void deliver(final ThumbnailTrack track, final int index,
+                         @Nullable final Bitmap tile) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // Drop the tiles of the positions which were dragged past
+                if (callback != null && wantedPosition != NO_POSITION
+                        && track.indexOf(wantedPosition) == index) {
+                    callback.onPreviewLoaded(wantedPosition, tile);
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private ThumbnailTrack getTrack() {
+        if (track != null || isFailed) {
+            return track;
+        }
+
+        try (InputStream inputStream = new FileInputStream(getFile(trackSource))) {
+            track = ThumbnailTrack.parse(inputStream);
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not read the thumbnail track " + trackSource, exception);
+            isFailed = true;
+        }
+        return track;
+    }
+
+    @Nullable
+    private Bitmap getTile(ThumbnailTrack track, int index) {
+        Bitmap tile = tiles.get(index);
+        if (tile != null) {
+            return tile;
+        }
+
+        ThumbnailTrack.Cue cue = track.getCue(index);
+        BitmapRegionDecoder decoder = getDecoder(cue.image);
+        if (decoder == null) {
+            return null;
+        }
+
+        Rect region = cue.region != null
+                ? new Rect(cue.region[0], cue.region[1],
+                cue.region[0] + cue.region[2], cue.region[1] + cue.region[3])
+                : new Rect(0, 0, decoder.getWidth(), decoder.getHeight());
+        if (!region.intersect(0, 0, decoder.getWidth(), decoder.getHeight())) {
+            return null;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inSampleSize = 1;
+        while (region.width() / (options.inSampleSize * 2) >= frameWidth) {
+            options.inSampleSize *= 2;
+        }
+
+        try {
+            tile = decoder.decodeRegion(region, options);
+        } catch (IllegalArgumentException exception) {
+            Log.w(TAG, "Could not decode the region " + region + " of " + cue.image, exception);
+            return null;
+        }
+
+        if (tile != null) {
+            tiles.put(index, tile);
+        }
+        return tile;
+    }
+
+    /**
+     * Gets the region decoder of a sprite sheet. The decoders of the most recently used sprite
+     * sheets are kept open, since consecutive cues usually share one.
+     */
+    @Nullable
+    private BitmapRegionDecoder getDecoder(String image) {
+        BitmapRegionDecoder decoder = decoders.get(image);
+        if (decoder != null) {
+            return decoder;
+        }
+
+        try {
+            decoder = BitmapRegionDecoder.newInstance(getFile(resolve(image)).getPath(), false);
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not read the sprite sheet " + image, exception);
+            return null;
+        }
+
+        if (decoder == null) {
+            return null;
+        }
+
+        if (decoders.size() >= MAX_OPEN_DECODERS) {
+            Iterator<Map.Entry<String, BitmapRegionDecoder>> iterator =
+                    decoders.entrySet().iterator();
+            iterator.next().getValue().recycle();
+            iterator.remove();
+        }
+        decoders.put(image, decoder);
+        return decoder;
+    }
+
+    /**
+     * Resolves the image URI of a cue, which is usually relative to the track.
+     */
+    private String resolve(String image) throws IOException {
+        if (FullscreenVideoMediaPlayer.isRemote(image)) {
+            return image;
+        }
+
+        if (FullscreenVideoMediaPlayer.isRemote(trackSource)) {
+            return new URL(new URL(trackSource), image).toString();
+        }
+
+        if (image.startsWith("/")) {
+            return image;
+        }
+        return new File(new File(trackSource).getParentFile(), image).getPath();
+    }
+
+    private File getFile(String source) throws IOException {
+        if (FullscreenVideoMediaPlayer.isRemote(source)) {
+            return PosterDownloader.download(context, source);
+        }
+        return new File(source);
+    }
+}
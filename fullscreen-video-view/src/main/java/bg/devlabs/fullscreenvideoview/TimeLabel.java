@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.widget.TextView;
+
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Shows a time as "h:mm:ss" in a TextView. The text is formatted into a reused buffer and is set
+ * only when the displayed second changes, so updating the label does not allocate.
+ */
+class TimeLabel {
+    // Fits the hours, minutes and seconds of any int milliseconds value
+    private static final int MAX_LENGTH = 16;
+
+    private final TextView textView;
+    private final char[] buffer = new char[MAX_LENGTH];
+    private final char zeroDigit = DecimalFormatSymbols.getInstance().getZeroDigit();
+    private int shownSeconds = -1;
+
+    TimeLabel(TextView textView) {
+        this.textView = textView;
+    }
+
+    /**
+     * Shows a time, unless the same second is already shown.
+     *
+     * @param timeMs the time in milliseconds
+     */
+    void setTime(int timeMs) {
+        int totalSeconds = Math.max(0, timeMs) / Constants.ONE_SECOND_MILLISECONDS;
+        if (totalSeconds == shownSeconds) {
+            return;
+        }
+
+        shownSeconds = totalSeconds;
+        int seconds = totalSeconds % Constants.ONE_MINUTE_SECONDS;
+        int minutes = (totalSeconds / Constants.ONE_MINUTE_SECONDS) % Constants.ONE_MINUTE_SECONDS;
+        int hours = totalSeconds / Constants.ONE_HOUR_SECONDS;
+
+        // Fill the buffer backwards - seconds, minutes and then the hours
+        int start = MAX_LENGTH;
+        start = putTwoDigits(seconds, start);
+        buffer[--start] = ':';
+        start = putTwoDigits(minutes, start);
+        buffer[--start] = ':';
+        do {
+            buffer[--start] = (char) (zeroDigit + hours % 10);
+            hours /= 10;
+        } while (hours > 0);
+
+        textView.setText(buffer, start, MAX_LENGTH - start);
+    }
+
+    private int putTwoDigits(int value, int end) {
+        buffer[end - 1] = (char) (zeroDigit + value % 10);
+        buffer[end - 2] = (char) (zeroDigit + value / 10);
+        return end - 2;
+    }
+}
@@ -0,0 +1,607 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An HTTP proxy on the loopback interface which serves the media player range requests from
+ * a size-bounded disk cache and goes to the upstream server only for the missing bytes.
+ * <p>
+ * The video is cached in chunks of {@link #CHUNK_SIZE} bytes, so that seeking into the
+ * middle of a video caches only the watched parts of it. The chunks at a start position can be
+ * prefetched before the media player asks for them.
+ */
+class VideoCacheProxy {
+    private static final String TAG = "VideoCacheProxy";
+    private static final String CACHE_DIRECTORY_NAME = "fullscreen-video-cache";
+    private static final String LOOPBACK_ADDRESS = "127.0.0.1";
+    private static final String METADATA_SUFFIX = ".meta";
+    private static final String DEFAULT_MIME_TYPE = "video/mp4";
+    private static final int CHUNK_SIZE = 512 * 1024;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 15000;
+    // The number of chunks prefetched at a start position
+    private static final int PREFETCH_CHUNK_COUNT = 2;
+    // Default size of the disk cache
+    static final long DEFAULT_MAX_SIZE_BYTES = 256L * 1024 * 1024;
+
+    private static volatile VideoCacheProxy INSTANCE;
+
+    private final CacheDirectory cacheDirectory;
+    private final ExecutorService executor;
+    @Nullable
+    private ServerSocket serverSocket;
+
+    private VideoCacheProxy(File directory, long maxSizeBytes) {
+        cacheDirectory = new CacheDirectory(directory, maxSizeBytes);
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, TAG);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        start();
+    }
+
+    /**
+     * Gets the process-wide proxy, starting it on first use.
+     *
+     * @param context      the context used to resolve the cache directory
+     * @param maxSizeBytes the maximum size of the disk cache in bytes
+     * @return the proxy instance
+     */
+    static VideoCacheProxy getInstance(Context context, long maxSizeBytes) {
+        if (INSTANCE == null) {
+            synchronized (VideoCacheProxy.class) {
+                if (INSTANCE == null) {
+                    File directory = new File(context.getCacheDir(), CACHE_DIRECTORY_NAME);
+                    INSTANCE = new VideoCacheProxy(directory, maxSizeBytes);
+                    return INSTANCE;
+                }
+            }
+        }
+
+        INSTANCE.cacheDirectory.setMaxSize(maxSizeBytes);
+        return INSTANCE;
+    }
+
+    private void start() {
+        try {
+            serverSocket = new ServerSocket(0, 8, InetAddress.getByName(LOOPBACK_ADDRESS));
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    acceptConnections();
+                }
+            });
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not start the video cache proxy", exception);
+            serverSocket = null;
+        }
+    }
+
+    /**
+     * Gets the URL which has to be passed to the media player instead of the original one.
+     *
+     * @param url the original video URL
+     * @return the proxied URL or the original one if the proxy is not running
+     */
+    String getProxyUrl(String url) {
+        ServerSocket socket = serverSocket;
+        if (socket == null) {
+            return url;
+        }
+
+        try {
+            return "http://" + LOOPBACK_ADDRESS + ":" + socket.getLocalPort() + "/"
+                    + URLEncoder.encode(url, "UTF-8");
+        } catch (UnsupportedEncodingException exception) {
+            return url;
+        }
+    }
+
+    /**
+     * Remembers the duration of a video, which is needed to estimate the byte offset of
+     * a position when prefetching.
+     *
+     * @param url        the original video URL
+     * @param durationMs the duration of the video in milliseconds
+     */
+    void setDuration(final String url, final int durationMs) {
+        if (durationMs <= 0) {
+            return;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                String key = CacheDirectory.keyFor(url);
+                Metadata metadata = readMetadata(key);
+                if (metadata != null && metadata.durationMs != durationMs) {
+                    Metadata updated = new Metadata(metadata.length, metadata.mimeType, durationMs);
+                    writeMetadata(key, updated);
+                }
+            }
+        });
+    }
+
+    /**
+     * Fetches the chunks at the estimated byte offset of a start position into the cache, so
+     * that the media player does not wait for them after its seek. The offset is estimated
+     * from the length and the duration of the video, which are known once it has been played.
+     *
+     * @param url        the original video URL
+     * @param positionMs the start position in milliseconds
+     */
+    void prefetch(final String url, final int positionMs) {
+        if (positionMs <= 0) {
+            return;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                String key = CacheDirectory.keyFor(url);
+                Metadata metadata = readMetadata(key);
+                if (metadata == null || metadata.durationMs <= 0) {
+                    return;
+                }
+
+                // Assume a constant bitrate, a sync frame before the position is needed anyway
+                double fraction = Math.min((double) positionMs / metadata.durationMs, 1.0);
+                int firstIndex = (int) ((long) ((metadata.length - 1) * fraction) / CHUNK_SIZE);
+                Upstream upstream = null;
+                try {
+                    int lastIndex = firstIndex + PREFETCH_CHUNK_COUNT - 1;
+                    for (int index = firstIndex; index <= lastIndex; index++) {
+                        long chunkStart = (long) index * CHUNK_SIZE;
+                        if (chunkStart >= metadata.length) {
+                            break;
+                        }
+
+                        long chunkLength = Math.min(CHUNK_SIZE, metadata.length - chunkStart);
+                        File chunk = cacheDirectory.get(chunkName(key, index));
+                        if (chunk != null && chunk.length() == chunkLength) {
+                            continue;
+                        }
+
+                        if (upstream == null || upstream.position != chunkStart) {
+                            closeQuietly(upstream);
+                            upstream = Upstream.open(url, chunkStart);
+                        }
+                        fetchChunk(upstream, key, index, chunkLength, 0, 0, null);
+                    }
+                } catch (IOException exception) {
+                    Log.w(TAG, "Could not prefetch the video", exception);
+                } finally {
+                    closeQuietly(upstream);
+                }
+            }
+        });
+    }
+
+    private void acceptConnections() {
+        ServerSocket socket = serverSocket;
+        while (socket != null && !socket.isClosed()) {
+            try {
+                final Socket client = socket.accept();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(client);
+                    }
+                });
+            } catch (IOException exception) {
+                Log.w(TAG, "Could not accept a connection", exception);
+            }
+        }
+    }
+
+    private void handle(Socket client) {
+        try {
+            ProxyRequest request = ProxyRequest.read(client.getInputStream());
+            OutputStream outputStream =
+                    new BufferedOutputStream(client.getOutputStream(), BUFFER_SIZE);
+            if (request != null) {
+                serve(request, outputStream);
+            } else {
+                writeBadRequest(outputStream);
+            }
+            outputStream.flush();
+        } catch (IOException ignored) {
+            // The media player closes the connection whenever it seeks
+        } finally {
+            closeQuietly(client);
+        }
+    }
+
+    private void serve(ProxyRequest request, OutputStream outputStream) throws IOException {
+        String key = CacheDirectory.keyFor(request.url);
+        Upstream upstream = null;
+        try {
+            Metadata metadata = readMetadata(key);
+            if (metadata == null) {
+                long start = request.rangeStart > 0 ? alignToChunk(request.rangeStart) : 0;
+                upstream = Upstream.open(request.url, start);
+                if (upstream.length < 0) {
+                    // The length is unknown, so the response can't be cached. Without the length
+                    // the partial response can't be described, so the whole video is sent
+                    if (upstream.position != 0) {
+                        closeQuietly(upstream);
+                        upstream = Upstream.open(request.url, 0);
+                    }
+                    passThrough(upstream, outputStream);
+                    return;
+                }
+
+                metadata = new Metadata(upstream.length, upstream.mimeType, -1);
+                writeMetadata(key, metadata);
+            }
+
+            long start = request.resolveStart(metadata.length);
+            long end = request.resolveEnd(metadata.length);
+            writeHeaders(outputStream, request, metadata, start, end);
+            if (request.isHead || start > end) {
+                return;
+            }
+
+            long position = start;
+            while (position <= end) {
+                int index = (int) (position / CHUNK_SIZE);
+                long chunkStart = (long) index * CHUNK_SIZE;
+                long chunkLength = Math.min(CHUNK_SIZE, metadata.length - chunkStart);
+                long last = Math.min(chunkStart + chunkLength - 1, end);
+                long count = last - position + 1;
+
+                File chunk = cacheDirectory.get(chunkName(key, index));
+                if (chunk != null && chunk.length() == chunkLength) {
+                    copyFromFile(chunk, position - chunkStart, count, outputStream);
+                } else {
+                    if (upstream == null || upstream.position != chunkStart) {
+                        closeQuietly(upstream);
+                        upstream = Upstream.open(request.url, chunkStart);
+                    }
+                    fetchChunk(upstream, key, index, chunkLength, position - chunkStart, count,
+                            outputStream);
+                }
+
+                position = last + 1;
+            }
+        } finally {
+            closeQuietly(upstream);
+        }
+    }
+
+    /**
+     * Reads a whole chunk from the upstream into the cache and forwards the requested part of it
+     * to the media player, if any.
+     */
+    private void fetchChunk(Upstream upstream,
+                            String key,
+                            int index,
+                            long chunkLength,
+                            long offset,
+                            long count,
+                            @Nullable OutputStream outputStream) throws IOException {
+        File tempFile = cacheDirectory.newTempFile();
+        boolean isComplete = false;
+        try {
+            OutputStream fileStream = new FileOutputStream(tempFile);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long read = 0;
+                while (read < chunkLength) {
+                    int length = upstream.read(buffer, (int) Math.min(buffer.length, chunkLength - read));
+                    if (length == -1) {
+                        throw new EOFException("Unexpected end of the upstream response");
+                    }
+
+                    fileStream.write(buffer, 0, length);
+                    // Forward only the bytes which overlap with the requested range
+                    long from = Math.max(read, offset);
+                    long to = Math.min(read + length, offset + count);
+                    if (outputStream != null && from < to) {
+                        outputStream.write(buffer, (int) (from - read), (int) (to - from));
+                    }
+                    read += length;
+                }
+                isComplete = true;
+            } finally {
+                fileStream.close();
+            }
+        } finally {
+            if (isComplete) {
+                cacheDirectory.commit(tempFile, chunkName(key, index));
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        }
+    }
+
+    private void copyFromFile(File file, long offset, long count, OutputStream outputStream)
+            throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            randomAccessFile.seek(offset);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = count;
+            while (remaining > 0) {
+                int length = randomAccessFile.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (length == -1) {
+                    throw new EOFException("Unexpected end of the cached chunk");
+                }
+
+                outputStream.write(buffer, 0, length);
+                remaining -= length;
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private void passThrough(Upstream upstream, OutputStream outputStream) throws IOException {
+        String headers = "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: " + upstream.mimeType + "\r\n"
+                + "Connection: close\r\n\r\n";
+        outputStream.write(headers.getBytes(Charset.forName("UTF-8")));
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = upstream.read(buffer, buffer.length)) != -1) {
+            outputStream.write(buffer, 0, length);
+        }
+    }
+
+    private void writeBadRequest(OutputStream outputStream) throws IOException {
+        String headers = "HTTP/1.1 400 Bad Request\r\n"
+                + "Content-Length: 0\r\n"
+                + "Connection: close\r\n\r\n";
+        outputStream.write(headers.getBytes(Charset.forName("UTF-8")));
+    }
+
+    private void writeHeaders(OutputStream outputStream,
+                              ProxyRequest request,
+                              Metadata metadata,
+                              long start,
+                              long end) throws IOException {
+        StringBuilder headers = new StringBuilder();
+        if (start > end) {
+            headers.append("HTTP/1.1 416 Range Not Satisfiable\r\n")
+                    .append("Content-Range: bytes */").append(metadata.length).append("\r\n");
+        } else if (request.hasRange()) {
+            headers.append("HTTP/1.1 206 Partial Content\r\n")
+                    .append("Content-Range: bytes ").append(start).append('-').append(end)
+                    .append('/').append(metadata.length).append("\r\n");
+        } else {
+            headers.append("HTTP/1.1 200 OK\r\n");
+        }
+
+        headers.append("Accept-Ranges: bytes\r\n")
+                .append("Content-Type: ").append(metadata.mimeType).append("\r\n")
+                .append("Content-Length: ").append(Math.max(0, end - start + 1)).append("\r\n")
+                .append("Connection: close\r\n\r\n");
+        outputStream.write(headers.toString().getBytes(Charset.forName("UTF-8")));
+    }
+
+    @Nullable
+    private Metadata readMetadata(String key) {
+        File file = cacheDirectory.get(key + METADATA_SUFFIX);
+        if (file == null) {
+            return null;
+        }
+
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                long length = Long.parseLong(reader.readLine());
+                String mimeType = reader.readLine();
+                // The duration is known only once the video has been prepared
+                String durationMs = reader.readLine();
+                return new Metadata(
+                        length,
+                        mimeType != null ? mimeType : DEFAULT_MIME_TYPE,
+                        durationMs != null ? Integer.parseInt(durationMs) : -1
+                );
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    private void writeMetadata(String key, Metadata metadata) {
+        try {
+            File tempFile = cacheDirectory.newTempFile();
+            Writer writer = new FileWriter(tempFile);
+            try {
+                writer.write(metadata.length + "\n" + metadata.mimeType + "\n"
+                        + metadata.durationMs + "\n");
+            } finally {
+                writer.close();
+            }
+            cacheDirectory.commit(tempFile, key + METADATA_SUFFIX);
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not write the video metadata", exception);
+        }
+    }
+
+    private static String chunkName(String key, int index) {
+        return key + "." + index;
+    }
+
+    private static long alignToChunk(long position) {
+        return position - position % CHUNK_SIZE;
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * The length, content type and duration of a cached video.
+     */
+    private static class Metadata {
+        final long length;
+        final String mimeType;
+        // The duration in milliseconds or -1 if it's unknown
+        final int durationMs;
+
+        Metadata(long length, String mimeType, int durationMs) {
+            this.length = length;
+            this.mimeType = mimeType;
+            this.durationMs = durationMs;
+        }
+    }
+
+    /**
+     * A response from the upstream server which starts at a given byte of the video.
+     */
+    private static class Upstream implements Closeable {
+        final HttpURLConnection connection;
+        final InputStream inputStream;
+        final long length;
+        final String mimeType;
+        long position;
+
+        private Upstream(HttpURLConnection connection,
+                         InputStream inputStream,
+                         long length,
+                         String mimeType,
+                         long position) {
+            this.connection = connection;
+            this.inputStream = inputStream;
+            this.length = length;
+            this.mimeType = mimeType;
+            this.position = position;
+        }
+
+        static Upstream open(String url, long start) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            if (start > 0) {
+                connection.setRequestProperty("Range", "bytes=" + start + "-");
+            }
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                connection.disconnect();
+                throw new IOException("The upstream server responded with " + responseCode);
+            }
+
+            InputStream inputStream = new BufferedInputStream(connection.getInputStream());
+            String mimeType = connection.getContentType();
+            if (mimeType == null) {
+                mimeType = DEFAULT_MIME_TYPE;
+            }
+
+            long length;
+            if (responseCode == HttpURLConnection.HTTP_PARTIAL) {
+                // Content-Range: bytes <start>-<end>/<length>
+                String contentRange = connection.getHeaderField("Content-Range");
+                length = contentRange != null
+                        ? parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1))
+                        : -1;
+            } else {
+                length = parseLong(connection.getHeaderField("Content-Length"));
+                // The server ignored the range, so skip to the requested start
+                long skipped = 0;
+                while (skipped < start) {
+                    long count = inputStream.skip(start - skipped);
+                    if (count <= 0) {
+                        connection.disconnect();
+                        throw new EOFException("Could not skip to the requested range");
+                    }
+                    skipped += count;
+                }
+            }
+
+            return new Upstream(connection, inputStream, length, mimeType, start);
+        }
+
+        int read(byte[] buffer, int count) throws IOException {
+            int length = inputStream.read(buffer, 0, count);
+            if (length > 0) {
+                position += length;
+            }
+            return length;
+        }
+
+        @Override
+        public void close() {
+            try {
+                inputStream.close();
+            } catch (IOException ignored) {
+            }
+            connection.disconnect();
+        }
+
+        private static long parseLong(@Nullable String value) {
+            if (value == null) {
+                return -1;
+            }
+
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException exception) {
+                return -1;
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
@@ -34,6 +35,7 @@ import android.view.View;
 import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
 import android.widget.ImageButton;
+import android.widget.ImageView;
 import android.widget.SeekBar;
 import android.widget.TextView;
 
@@ -43,8 +45,6 @@ import androidx.core.content.ContextCompat;
 import androidx.core.graphics.BlendModeColorFilterCompat;
 import androidx.core.graphics.BlendModeCompat;
 
-import java.util.Locale;
-
 import bg.devlabs.fullscreenvideoview.listener.mediacontroller.MediaControllerListener;
 import bg.devlabs.fullscreenvideoview.orientation.OrientationManager;
 import bg.devlabs.fullscreenvideoview.playbackspeed.PlaybackSpeedManager;
@@ -86,6 +86,8 @@ class VideoControllerView extends FrameLayout
 
     @Nullable
     private MessageHandler handler;
+    @Nullable
+    private ProgressTicker progressTicker;
 
     // Views
     private TextView endTime;
@@ -96,12 +98,19 @@ class VideoControllerView extends FrameLayout
     private ImageButton rewindButton;
     private ImageButton fullscreenButton;
     private TextView playbackSpeedButton;
+    private TimeLabel endTimeLabel;
+    private TimeLabel currentTimeLabel;
 
     @Nullable
     private MediaControllerListener mediaControllerListener;
+    @Nullable
+    private ImageView seekPreviewView;
+    @Nullable
+    private SeekPreviewProvider seekPreviewProvider;
 
     // Flags
     private boolean isDragging;
+    private int dragPosition = -1;
     private boolean seekBackwardButtonVisible = false;
     private boolean seekForwardButtonVisible = false;
     private boolean playbackSpeedButtonVisible = false;
@@ -116,6 +125,17 @@ class VideoControllerView extends FrameLayout
     private int fastForwardDuration = Constants.FAST_FORWARD_DURATION;
     private int rewindDuration = Constants.REWIND_DURATION;
 
+    private final SeekPreviewProvider.Callback seekPreviewCallback =
+            new SeekPreviewProvider.Callback() {
+                @Override
+                public void onPreviewLoaded(int positionMs, @Nullable Bitmap preview) {
+                    if (isDragging && seekPreviewView != null) {
+                        seekPreviewView.setImageBitmap(preview);
+                        seekPreviewView.setVisibility(preview != null ? VISIBLE : GONE);
+                    }
+                }
+            };
+
     private ViewTreeObserver.OnWindowFocusChangeListener onWindowFocusChangeListener =
             new ViewTreeObserver.OnWindowFocusChangeListener() {
                 @Override
@@ -176,6 +196,12 @@ class VideoControllerView extends FrameLayout
 
         endTime = findViewById(R.id.time);
         currentTime = findViewById(R.id.time_current);
+        if (endTime != null) {
+            endTimeLabel = new TimeLabel(endTime);
+        }
+        if (currentTime != null) {
+            currentTimeLabel = new TimeLabel(currentTime);
+        }
     }
 
     public void init(AttributeSet attrs) {
@@ -187,6 +213,7 @@ class VideoControllerView extends FrameLayout
         updateRewindDrawable();
 
         handler = new MessageHandler(this);
+        progressTicker = new ProgressTicker(this);
 
         getViewTreeObserver().addOnWindowFocusChangeListener(onWindowFocusChangeListener);
     }
@@ -206,23 +233,23 @@ class VideoControllerView extends FrameLayout
     public void show(int timeout) {
         if (!isShowing()) {
             startPauseButton.requestFocus();
-            setProgress();
+            int position = setProgress();
+            if (seekPreviewProvider != null) {
+                // Scrubbing usually starts around the current position
+                seekPreviewProvider.prefetch(position);
+            }
             setupButtonsVisibility();
             setVisibility(VISIBLE);
         }
 
-        if (startPauseButton != null) {
-            boolean isPlaying = videoMediaPlayer.isPlaying();
-            Drawable playPauseDrawable = drawableManager.getPlayPauseDrawable(isPlaying);
-            startPauseButton.setImageDrawable(playPauseDrawable);
-        }
-
         updatePausePlay();
         updateFullScreenDrawable();
 
         // Cause the progress bar to be updated even if it's showing.
         // This happens, for example, if we're
         // paused with the progress bar showing the user hits play.
+        refreshProgress();
+
         if (handler == null) {
             return;
         }
@@ -242,9 +269,10 @@ class VideoControllerView extends FrameLayout
     public void hide() {
         try {
             setVisibility(INVISIBLE);
-            if (handler != null) {
-                handler.hide();
+            if (progressTicker != null) {
+                progressTicker.stop();
             }
+            hideSeekPreview();
         } catch (IllegalArgumentException ignored) {
             Log.w("MediaController", "already removed");
         }
@@ -256,25 +284,30 @@ class VideoControllerView extends FrameLayout
             return 0;
         }
 
-        int position = videoMediaPlayer.getCurrentPosition();
-        int duration = getDuration();
+        PlayerStateMirror playerState = videoMediaPlayer.getStateMirror();
+        int position = playerState.getCurrentPosition();
+        int duration = playerState.getDuration();
         if (progress != null) {
             if (duration > 0) {
                 // Use long to avoid overflow
-                long pos = Constants.ONE_MILLISECOND * position / duration;
-                progress.setProgress((int) pos);
+                int pos = (int) (Constants.ONE_MILLISECOND * position / duration);
+                if (progress.getProgress() != pos) {
+                    progress.setProgress(pos);
+                }
             }
 
-            int percent = videoMediaPlayer.getBufferPercentage();
-            progress.setSecondaryProgress(percent * 10);
+            int secondaryProgress = videoMediaPlayer.getBufferPercentage() * 10;
+            if (progress.getSecondaryProgress() != secondaryProgress) {
+                progress.setSecondaryProgress(secondaryProgress);
+            }
         }
 
-        if (endTime != null) {
-            endTime.setText(stringForTime(duration));
+        if (endTimeLabel != null) {
+            endTimeLabel.setTime(duration);
         }
 
-        if (currentTime != null) {
-            currentTime.setText(stringForTime(position));
+        if (currentTimeLabel != null) {
+            currentTimeLabel.setTime(position);
         }
 
         return position;
@@ -321,7 +354,7 @@ class VideoControllerView extends FrameLayout
      */
     public void updatePausePlay() {
         if (startPauseButton != null) {
-            boolean isPlaying = videoMediaPlayer.isPlaying();
+            boolean isPlaying = isPlaying();
             Drawable playPauseDrawable = drawableManager.getPlayPauseDrawable(isPlaying);
             startPauseButton.setImageDrawable(playPauseDrawable);
         }
@@ -337,11 +370,12 @@ class VideoControllerView extends FrameLayout
     }
 
     /**
-     * Refreshes the progress bar.
+     * Refreshes the progress bar on the next frame and keeps it refreshed while the video plays
+     * and the controller is showing.
      */
     public void refreshProgress() {
-        if (handler != null) {
-            handler.refresh();
+        if (progressTicker != null && isShowing()) {
+            progressTicker.start();
         }
     }
 
@@ -351,16 +385,29 @@ class VideoControllerView extends FrameLayout
      * @return the video duration
      */
     public int getDuration() {
-        return videoMediaPlayer.getDuration();
+        return videoMediaPlayer.getStateMirror().getDuration();
     }
 
     /**
-     * Seeks to a preferred position.
+     * Gets the playback speed.
+     *
+     * @return the playback speed
+     */
+    float getPlaybackSpeed() {
+        return videoMediaPlayer.getStateMirror().getSpeed();
+    }
+
+    /**
+     * Seeks to a preferred position. While the SeekBar is dragged the seek goes to the previous
+     * sync frame and the precise seek is issued when the drag ends.
      *
      * @param position the selected position
      */
     public void seekTo(int position) {
-        videoMediaPlayer.seekTo(position);
+        if (isDragging) {
+            dragPosition = position;
+        }
+        videoMediaPlayer.scheduleSeek(position, !isDragging);
     }
 
     /**
@@ -369,8 +416,8 @@ class VideoControllerView extends FrameLayout
      * @param position the selected position
      */
     public void setCurrentTime(int position) {
-        if (currentTime != null) {
-            currentTime.setText(stringForTime(position));
+        if (currentTimeLabel != null) {
+            currentTimeLabel.setTime(position);
         }
     }
 
@@ -388,7 +435,7 @@ class VideoControllerView extends FrameLayout
     private void setupButtonListeners() {
         startPauseButton.setOnClickListener(view -> {
             if (mediaControllerListener != null) {
-                if (videoMediaPlayer.isPlaying()) {
+                if (isPlaying()) {
                     mediaControllerListener.onPauseClicked();
                 } else {
                     mediaControllerListener.onPlayClicked();
@@ -462,12 +509,13 @@ class VideoControllerView extends FrameLayout
         show(Constants.ONE_HOUR_MILLISECONDS);
         setIsDragging(true);
 
-        // By removing these pending progress messages we make sure
-        // that a) we won't update the progress while the user adjusts
-        // the seekbar and b) once the user is done dragging the thumb
-        // we will post one of these messages to the queue again and
-        // this ensures that there will be exactly one message queued up.
-        refreshProgress();
+        // By stopping the progress ticker we make sure that we won't update
+        // the progress while the user adjusts the seekbar. It's started again
+        // once the user is done dragging the thumb.
+        if (progressTicker != null) {
+            progressTicker.stop();
+        }
+        updateSeekPreview(seekBar, getPosition(seekBar.getProgress()));
     }
 
     @Override
@@ -478,17 +526,28 @@ class VideoControllerView extends FrameLayout
             return;
         }
 
-        long duration = getDuration();
-        long newPosition = (duration * progress) / Constants.ONE_MILLISECOND;
+        int newPosition = getPosition(progress);
 
-        seekTo((int) newPosition);
-        setCurrentTime((int) newPosition);
+        seekTo(newPosition);
+        setCurrentTime(newPosition);
         updateSeekBarProgress(newPosition);
+        updateSeekPreview(seekBar, newPosition);
+    }
+
+    private int getPosition(int progress) {
+        long duration = getDuration();
+        return (int) ((duration * progress) / Constants.ONE_MILLISECOND);
     }
 
     @Override
     public void onStopTrackingTouch(SeekBar seekBar) {
         setIsDragging(false);
+        hideSeekPreview();
+        if (dragPosition != -1) {
+            // Land on the exact frame at the end of the drag
+            videoMediaPlayer.scheduleSeek(dragPosition, true);
+            dragPosition = -1;
+        }
         setProgress();
         updatePausePlay();
         show(DEFAULT_CONTROLLER_TIMEOUT);
@@ -499,6 +558,51 @@ class VideoControllerView extends FrameLayout
         refreshProgress();
     }
 
+    /**
+     * Sets the view and the provider of the preview shown above the SeekBar while it's dragged.
+     *
+     * @param seekPreviewView     the preview view, which is a sibling of the controller
+     * @param seekPreviewProvider the provider of the previews or null to disable the preview
+     */
+    void setSeekPreview(@Nullable ImageView seekPreviewView,
+                        @Nullable SeekPreviewProvider seekPreviewProvider) {
+        hideSeekPreview();
+        this.seekPreviewView = seekPreviewView;
+        this.seekPreviewProvider = seekPreviewProvider;
+    }
+
+    private void updateSeekPreview(SeekBar seekBar, int position) {
+        if (seekPreviewProvider == null || seekPreviewView == null) {
+            return;
+        }
+
+        seekPreviewProvider.requestPreview(position, seekPreviewCallback);
+
+        // Center the preview above the thumb, keeping it inside the parent
+        int availableWidth = seekBar.getWidth() - seekBar.getPaddingLeft()
+                - seekBar.getPaddingRight();
+        float thumbX = seekBar.getPaddingLeft()
+                + availableWidth * seekBar.getProgress() / (float) seekBar.getMax();
+        View seekBarParent = (View) seekBar.getParent();
+        float x = getLeft() + seekBarParent.getLeft() + seekBar.getLeft() + thumbX
+                - seekPreviewView.getWidth() / 2f;
+        int parentWidth = ((View) seekPreviewView.getParent()).getWidth();
+        x = Math.max(0, Math.min(x, parentWidth - seekPreviewView.getWidth()));
+        seekPreviewView.setTranslationX(x);
+        seekPreviewView.setTranslationY(-getHeight());
+    }
+
+    private void hideSeekPreview() {
+        if (seekPreviewProvider != null) {
+            seekPreviewProvider.cancel();
+        }
+
+        if (seekPreviewView != null) {
+            seekPreviewView.setVisibility(GONE);
+            seekPreviewView.setImageDrawable(null);
+        }
+    }
+
     private void setupXmlAttributes(AttributeSet attrs) {
         TypedArray styledAttrs = getContext().obtainStyledAttributes(
                 attrs,
@@ -587,14 +691,6 @@ class VideoControllerView extends FrameLayout
         playbackSpeedManager.hidePlaybackButton(playbackSpeedButtonVisible);
     }
 
-    private static CharSequence stringForTime(int timeMs) {
-        int totalSeconds = timeMs / Constants.ONE_SECOND_MILLISECONDS;
-        int seconds = totalSeconds % Constants.ONE_MINUTE_SECONDS;
-        int minutes = (totalSeconds / Constants.ONE_MINUTE_SECONDS) % Constants.ONE_MINUTE_SECONDS;
-        int hours = totalSeconds / Constants.ONE_HOUR_SECONDS;
-        return String.format(Locale.getDefault(), "%d:%02d:%02d", hours, minutes, seconds);
-    }
-
     private void doPauseResume() {
         videoMediaPlayer.onPauseResume();
         updatePausePlay();
@@ -606,7 +702,13 @@ class VideoControllerView extends FrameLayout
             handler = null;
         }
 
+        if (progressTicker != null) {
+            progressTicker.onDestroy();
+            progressTicker = null;
+        }
+
         mediaControllerListener = null;
+        setSeekPreview(null, null);
         getViewTreeObserver().removeOnWindowFocusChangeListener(onWindowFocusChangeListener);
     }
 
@@ -646,6 +748,26 @@ class VideoControllerView extends FrameLayout
         drawableManager.setRewindDrawable(rewindDrawable);
     }
 
+    /**
+     * Prepares the controller for a new video source - hides it and shows the normal playback
+     * speed, since the media player plays the new source at the normal speed.
+     */
+    void onSourceChanged() {
+        hide();
+        setIsDragging(false);
+        dragPosition = -1;
+        resetPlaybackSpeed();
+        updatePausePlay();
+    }
+
+    /**
+     * Shows the normal playback speed, since a media player which was prepared again plays at
+     * the normal speed.
+     */
+    void resetPlaybackSpeed() {
+        playbackSpeedManager.resetPlaybackSpeedText();
+    }
+
     public void setPlaybackSpeedOptions(PlaybackSpeedOptions playbackSpeedOptions) {
         playbackSpeedManager.setPlaybackSpeedOptions(playbackSpeedOptions);
     }
@@ -719,6 +841,6 @@ class VideoControllerView extends FrameLayout
     }
 
     public boolean isPlaying() {
-        return videoMediaPlayer.isPlaying();
+        return videoMediaPlayer.getStateMirror().isPlaying();
     }
 }
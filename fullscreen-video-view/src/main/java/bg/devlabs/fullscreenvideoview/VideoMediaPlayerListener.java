@@ -28,8 +28,9 @@ public interface VideoMediaPlayerListener {
      * Called when an error occurs in the media player.
      *
      * @param error The media player error
+     * @return true if the error was handled, false to let the media player complete the video
      */
-    void onMediaPlayerError(MediaPlayerError error);
+    boolean onMediaPlayerError(MediaPlayerError error);
 
     /**
      * Called when the video playing has completed.
@@ -37,4 +38,53 @@ public interface VideoMediaPlayerListener {
     void onMediaPlayerCompletion();
 
     void onMediaPlayerStarted();
+
+    /**
+     * Called when the first video frame of the data source has been rendered.
+     */
+    void onMediaPlayerRenderingStarted();
+
+    /**
+     * Called when the media player has to be reset, because the decoder budget is exceeded.
+     *
+     * @return true if the media player was reset, false if it still holds its decoder
+     */
+    boolean onMediaPlayerEvicted();
+
+    /**
+     * Called when an evicted media player is started. It has to be prepared again first.
+     *
+     * @return true if it's prepared again, false to start the media player as it is
+     */
+    boolean onMediaPlayerRestoreRequested();
+
+    /**
+     * Called when a start, pause or stop command has been executed by the media player.
+     */
+    void onMediaPlayerPlaybackStateChanged();
+
+    /**
+     * Called when the buffered part of a remote video changes.
+     *
+     * @param percent The buffered part of the video in percents
+     */
+    void onMediaPlayerBufferingUpdate(int percent);
+
+    /**
+     * Called when the playback is paused to buffer more data.
+     */
+    void onMediaPlayerBufferingStarted();
+
+    /**
+     * Called when the playback continues after buffering more data.
+     */
+    void onMediaPlayerBufferingEnded();
+
+    /**
+     * Called when a scheduled seek has completed.
+     *
+     * @param positionMs The position of the seek in milliseconds
+     * @param latencyMs The time from issuing the seek to its completion in milliseconds
+     */
+    void onMediaPlayerSeekCompleted(int positionMs, long latencyMs);
 }
@@ -17,15 +17,33 @@
 package bg.devlabs.fullscreenvideoview;
 
 import android.content.Context;
+import android.graphics.Rect;
+import android.os.Build;
 import android.util.AttributeSet;
-import android.view.Gravity;
 import android.view.SurfaceView;
-import android.view.ViewGroup;
-import android.widget.FrameLayout;
+import android.view.View;
 
+import bg.devlabs.fullscreenvideoview.model.VideoScaleMode;
+
+/**
+ * A SurfaceView which applies the aspect ratio of the video when it's measured, so that
+ * a change of the video size costs a single layout pass and the video is scaled to the actual
+ * bounds given by the parent.
+ * <p>
+ * A cropped video is larger than the parent, and the surface of a SurfaceView is not clipped by
+ * the parent. The surface is clipped to the bounds of the parent with the clip bounds, which
+ * the platform applies to the surface since Android 12. Before it, the video is cropped only in
+ * fullscreen, where nothing else is drawn around it, and it's fitted in the bounds otherwise.
+ */
 class VideoSurfaceView extends SurfaceView {
-    private int previousHeight;
-    private int previousWidth;
+    // Build.VERSION_CODES.S, since when the clip bounds of a SurfaceView apply to its surface
+    private static final int CLIPPED_SURFACE_SDK_INT = 31;
+
+    private final Rect clipBounds = new Rect();
+    private int videoWidth;
+    private int videoHeight;
+    private VideoScaleMode scaleMode = VideoScaleMode.FIT;
+    private boolean isFullscreen;
 
     public VideoSurfaceView(Context context) {
         super(context);
@@ -39,41 +57,90 @@ class VideoSurfaceView extends SurfaceView {
         super(context, attrs, defStyleAttr);
     }
 
-    public void updateLayoutParams(int videoWidth, int videoHeight) {
-        ViewGroup.LayoutParams layoutParams = getLayoutParams();
-        resetLayoutParams(layoutParams);
-        previousHeight = layoutParams.height;
-        previousWidth = layoutParams.width;
-        // Get the Display Metrics
-        DeviceDimensionsManager deviceDimensionsManager = DeviceDimensionsManager.getInstance();
-        // Get the width of the screen
-        Context context = getContext();
-        int screenWidth = deviceDimensionsManager.getDisplayWidth(context);
-        int screenHeight = deviceDimensionsManager.getDisplayHeight(context);
-        // Get the SurfaceView layout parameters
-        FrameLayout.LayoutParams surfaceViewLayoutParams = (FrameLayout.LayoutParams) layoutParams;
-        if ((float) videoHeight / screenHeight > (float) videoWidth / screenWidth) {
-            surfaceViewLayoutParams.height = screenHeight;
-            // Set the width of the SurfaceView to match the aspect ratio of the video
-            // be sure to cast these as floats otherwise the calculation will likely be 0
-            surfaceViewLayoutParams.width = (int) (((float) videoWidth / videoHeight) * screenHeight);
+    /**
+     * Changes the size of the video, which is measured again only if the size has changed.
+     *
+     * @param videoWidth  the width of the video in pixels
+     * @param videoHeight the height of the video in pixels
+     */
+    public void setVideoSize(int videoWidth, int videoHeight) {
+        if (this.videoWidth == videoWidth && this.videoHeight == videoHeight) {
+            return;
+        }
+
+        this.videoWidth = videoWidth;
+        this.videoHeight = videoHeight;
+        requestLayout();
+    }
+
+    public void setScaleMode(VideoScaleMode scaleMode) {
+        if (this.scaleMode == scaleMode) {
+            return;
+        }
+
+        this.scaleMode = scaleMode;
+        requestLayout();
+    }
+
+    /**
+     * Changes whether the view fills the screen, in which case the video can be cropped on
+     * the platforms which do not clip the surface.
+     *
+     * @param isFullscreen true if the view is in fullscreen mode
+     */
+    public void setFullscreen(boolean isFullscreen) {
+        if (this.isFullscreen == isFullscreen) {
+            return;
+        }
+
+        this.isFullscreen = isFullscreen;
+        if (scaleMode == VideoScaleMode.ZOOM) {
+            requestLayout();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        int width = getMeasuredWidth();
+        int height = getMeasuredHeight();
+        if (videoWidth <= 0 || videoHeight <= 0 || width <= 0 || height <= 0
+                || scaleMode == VideoScaleMode.FILL) {
+            return;
+        }
+
+        // Be sure to use floats, otherwise the ratios will likely be 0
+        float videoAspectRatio = (float) videoWidth / videoHeight;
+        float boundsAspectRatio = (float) width / height;
+        boolean isVideoWider = videoAspectRatio > boundsAspectRatio;
+        boolean isCropped = scaleMode == VideoScaleMode.ZOOM
+                && (isFullscreen || Build.VERSION.SDK_INT >= CLIPPED_SURFACE_SDK_INT);
+        if (isVideoWider != isCropped) {
+            // Keep the width, FIT letterboxes a wider video and ZOOM crops a narrower one
+            height = Math.round(width / videoAspectRatio);
         } else {
-            // Set the width of the SurfaceView to the width of the screen
-            surfaceViewLayoutParams.width = screenWidth;
-            // Set the height of the SurfaceView to match the aspect ratio of the video
-            // be sure to cast these as floats otherwise the calculation will likely be 0
-            surfaceViewLayoutParams.height = (int) (((float) videoHeight / videoWidth) * screenWidth);
+            width = Math.round(height * videoAspectRatio);
         }
-        // Change the gravity to center
-        surfaceViewLayoutParams.gravity = Gravity.CENTER;
-        // Commit the layout parameters
-        setLayoutParams(surfaceViewLayoutParams);
+        setMeasuredDimension(width, height);
     }
 
-    private void resetLayoutParams(ViewGroup.LayoutParams layoutParams) {
-        FrameLayout.LayoutParams frameLayoutParams = (FrameLayout.LayoutParams) layoutParams;
-        frameLayoutParams.height = previousHeight;
-        frameLayoutParams.width = previousWidth;
-        setLayoutParams(layoutParams);
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        View parent = (View) getParent();
+        if (parent == null) {
+            return;
+        }
+
+        // Clip the parts of a cropped video which are out of the parent
+        clipBounds.set(
+                Math.max(0, -left),
+                Math.max(0, -top),
+                Math.min(right, parent.getWidth()) - left,
+                Math.min(bottom, parent.getHeight()) - top
+        );
+        boolean isClipped = clipBounds.width() < right - left
+                || clipBounds.height() < bottom - top;
+        setClipBounds(isClipped ? clipBounds : null);
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Tracks how much of a view is visible on the screen, using its global visible rect when
+ * the view tree is laid out or scrolled.
+ * <p>
+ * The view becomes visible when the visible fraction of its area reaches the threshold and
+ * hidden when no part of it is visible anymore, so that a view at the edge of the screen does
+ * not flip between both states.
+ */
+class VisibilityTracker implements ViewTreeObserver.OnScrollChangedListener,
+        ViewTreeObserver.OnGlobalLayoutListener {
+
+    interface Listener {
+
+        void onVisible();
+
+        void onHidden();
+    }
+
+    private final View view;
+    private final float threshold;
+    private final Listener listener;
+    private final Rect visibleRect = new Rect();
+    private boolean isVisible;
+    private boolean isStarted;
+
+    /**
+     * @param view      the tracked view
+     * @param threshold the visible fraction of the view area, between 0 and 1, at which
+     *                  the view becomes visible
+     * @param listener  the listener for the visibility changes
+     */
+    VisibilityTracker(View view, float threshold, Listener listener) {
+        this.view = view;
+        this.threshold = Math.max(0f, Math.min(threshold, 1f));
+        this.listener = listener;
+    }
+
+    /**
+     * Starts tracking. Has to be called when the view is attached to the window.
+     */
+    void start() {
+        if (isStarted) {
+            return;
+        }
+
+        isStarted = true;
+        ViewTreeObserver observer = view.getViewTreeObserver();
+        observer.addOnScrollChangedListener(this);
+        observer.addOnGlobalLayoutListener(this);
+        update();
+    }
+
+    /**
+     * Stops tracking. The view counts as hidden until the tracking is started again, when its
+     * visibility is evaluated anew.
+     */
+    void stop() {
+        if (!isStarted) {
+            return;
+        }
+
+        isStarted = false;
+        isVisible = false;
+        ViewTreeObserver observer = view.getViewTreeObserver();
+        observer.removeOnScrollChangedListener(this);
+        observer.removeOnGlobalLayoutListener(this);
+    }
+
+    boolean isVisible() {
+        return isVisible;
+    }
+
+    @Override
+    public void onScrollChanged() {
+        update();
+    }
+
+    @Override
+    public void onGlobalLayout() {
+        update();
+    }
+
+    private void update() {
+        float visibleFraction = getVisibleFraction();
+        if (!isVisible && visibleFraction > 0 && visibleFraction >= threshold) {
+            isVisible = true;
+            listener.onVisible();
+        } else if (isVisible && visibleFraction == 0) {
+            isVisible = false;
+            listener.onHidden();
+        }
+    }
+
+    private float getVisibleFraction() {
+        long area = (long) view.getWidth() * view.getHeight();
+        if (area == 0 || !view.isShown() || !view.getGlobalVisibleRect(visibleRect)) {
+            return 0;
+        }
+
+        return (float) visibleRect.width() * visibleRect.height() / area;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.listener;
+
+/**
+ * Listener for the health of the video buffer.
+ */
+public interface OnBufferHealthListener {
+
+    /**
+     * Called when the amount of video buffered ahead of the playback position changes.
+     *
+     * @param bufferedAheadMs the buffered video ahead of the playback position in milliseconds
+     */
+    void onBufferHealthChanged(long bufferedAheadMs);
+
+    /**
+     * Called when the playback has stalled, because the buffer has run out.
+     */
+    void onBufferingStarted();
+
+    /**
+     * Called when the playback continues after a stall.
+     *
+     * @param stallDurationMs the duration of the stall in milliseconds
+     */
+    void onBufferingEnded(long stallDurationMs);
+}
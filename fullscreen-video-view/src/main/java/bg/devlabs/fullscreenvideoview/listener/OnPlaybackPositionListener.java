@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.listener;
+
+/**
+ * Listener for the playback position, called once per display frame while the video plays.
+ */
+public interface OnPlaybackPositionListener {
+
+    /**
+     * Called when the playback position changes. It's called on the main thread, aligned with
+     * the display frames, so the implementation should not allocate or block.
+     *
+     * @param positionMs the playback position in milliseconds
+     */
+    void onPlaybackPositionChanged(long positionMs);
+}
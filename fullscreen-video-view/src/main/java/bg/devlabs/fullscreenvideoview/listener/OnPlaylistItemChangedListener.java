@@ -0,0 +1,30 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.listener;
+
+/**
+ * Listener for when the playing item of a playlist changes.
+ */
+public interface OnPlaylistItemChangedListener {
+
+    /**
+     * Called when another item of the playlist starts playing.
+     *
+     * @param index the index of the playing item in the playlist
+     */
+    void onPlaylistItemChanged(int index);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.listener;
+
+import java.io.IOException;
+import java.util.List;
+
+import bg.devlabs.fullscreenvideoview.model.PlaybackEvent;
+
+/**
+ * Receives the batches of playback events, for example to upload them to an analytics service.
+ */
+public interface PlaybackEventSink {
+
+    /**
+     * Called on a background thread with a batch of events in the order they occurred.
+     * The call may block, for example on the network.
+     *
+     * @param events the events
+     * @throws IOException if the events could not be handled, in which case they are sent
+     *                     again with the next batch
+     */
+    void onPlaybackEvents(List<PlaybackEvent> events) throws IOException;
+}
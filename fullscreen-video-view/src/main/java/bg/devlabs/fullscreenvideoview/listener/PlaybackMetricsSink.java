@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.listener;
+
+import bg.devlabs.fullscreenvideoview.model.PlaybackMetricsSnapshot;
+
+/**
+ * Receives the playback metrics of each video, for example to upload them to an analytics
+ * service.
+ */
+public interface PlaybackMetricsSink {
+
+    /**
+     * Called on the main thread when the playback of a video ends, because the video is changed
+     * or the view is detached.
+     *
+     * @param snapshot the metrics of the video
+     */
+    void onPlaybackMetricsReported(PlaybackMetricsSnapshot snapshot);
+}
@@ -18,6 +18,8 @@ package bg.devlabs.fullscreenvideoview.model;
 
 import android.graphics.drawable.Drawable;
 
+import java.io.File;
+
 import bg.devlabs.fullscreenvideoview.orientation.LandscapeOrientation;
 import bg.devlabs.fullscreenvideoview.orientation.PortraitOrientation;
 import bg.devlabs.fullscreenvideoview.playbackspeed.PlaybackSpeedOptions;
@@ -44,6 +46,8 @@ public class Arguments {
     public boolean addPlaybackSpeedButton = false;
     public PlaybackSpeedOptions playbackSpeedOptions = null;
     public int thumbnailResId = -1;
+    public String thumbnailUrl = null;
+    public File thumbnailFile = null;
     public boolean hideProgress = false;
     public boolean hideFullscreenButton = false;
     public int seekToTimeMillis = -1;
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.model;
+
+/**
+ * An immutable histogram of latencies with fixed buckets. Each bucket counts the latencies up to
+ * and including its upper bound and above the upper bound of the previous bucket. The last bucket
+ * has no upper bound.
+ */
+public class LatencyHistogram {
+    private final long[] upperBoundsMs;
+    private final long[] counts;
+    private final long totalCount;
+    private final long sumMs;
+    private final long maxMs;
+
+    /**
+     * Creates a new LatencyHistogram. The arrays are copied.
+     *
+     * @param upperBoundsMs the upper bounds of all buckets but the last one in milliseconds
+     * @param counts        the counts of the buckets, one more than the upper bounds
+     * @param sumMs         the sum of all recorded latencies in milliseconds
+     * @param maxMs         the maximum recorded latency in milliseconds
+     */
+    public LatencyHistogram(long[] upperBoundsMs, long[] counts, long sumMs, long maxMs) {
+        if (counts.length != upperBoundsMs.length + 1) {
+            throw new IllegalArgumentException("There must be one count more than upper bounds");
+        }
+
+        this.upperBoundsMs = upperBoundsMs.clone();
+        this.counts = counts.clone();
+        long totalCount = 0;
+        for (long count : counts) {
+            totalCount += count;
+        }
+        this.totalCount = totalCount;
+        this.sumMs = sumMs;
+        this.maxMs = maxMs;
+    }
+
+    /**
+     * Gets the number of buckets.
+     *
+     * @return the number of buckets
+     */
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * Gets the upper bound of a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the upper bound in milliseconds or Long.MAX_VALUE for the last bucket
+     */
+    public long getUpperBoundMs(int bucket) {
+        return bucket < upperBoundsMs.length ? upperBoundsMs[bucket] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the number of latencies in a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the number of latencies
+     */
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Gets the number of all recorded latencies.
+     *
+     * @return the number of latencies
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the sum of all recorded latencies.
+     *
+     * @return the sum in milliseconds
+     */
+    public long getSumMs() {
+        return sumMs;
+    }
+
+    /**
+     * Gets the maximum recorded latency.
+     *
+     * @return the maximum in milliseconds or 0 if nothing is recorded
+     */
+    public long getMaxMs() {
+        return maxMs;
+    }
+
+    /**
+     * Gets the mean of the recorded latencies.
+     *
+     * @return the mean in milliseconds or 0 if nothing is recorded
+     */
+    public long getMeanMs() {
+        return totalCount > 0 ? sumMs / totalCount : 0;
+    }
+
+    /**
+     * Estimates a percentile of the recorded latencies as the upper bound of the bucket which
+     * contains it. The percentiles in the last bucket are estimated as the maximum.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the estimated percentile in milliseconds or 0 if nothing is recorded
+     */
+    public long getPercentileMs(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(totalCount * Math.max(0, Math.min(100, percentile)) / 100);
+        long count = 0;
+        for (int i = 0; i < upperBoundsMs.length; i++) {
+            count += counts[i];
+            if (count >= Math.max(1, rank)) {
+                return Math.min(upperBoundsMs[i], maxMs);
+            }
+        }
+        return maxMs;
+    }
+}
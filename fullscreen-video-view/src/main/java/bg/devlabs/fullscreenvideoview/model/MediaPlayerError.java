@@ -33,6 +33,14 @@ public class MediaPlayerError {
      */
     private int code = -1;
 
+    /**
+     * The extra code received with the error code, which specifies the error further, for
+     * example {@link android.media.MediaPlayer#MEDIA_ERROR_IO}.
+     *
+     * @see MediaPlayerErrorType#ASYNC_OPERATION
+     */
+    private int extra;
+
     /**
      * The error message received when there is an error when setting the media player data source.
      *
@@ -51,6 +59,19 @@ public class MediaPlayerError {
         this.code = code;
     }
 
+    /**
+     * Creates a new MediaPlayerError with type, code and extra code.
+     *
+     * @param type The error type
+     * @param code The error code
+     * @param extra The extra code
+     */
+    public MediaPlayerError(MediaPlayerErrorType type, int code, int extra) {
+        this.type = type;
+        this.code = code;
+        this.extra = extra;
+    }
+
     /**
      * Creates a new MediaPlayerError with type and message.
      *
@@ -80,6 +101,15 @@ public class MediaPlayerError {
         return code;
     }
 
+    /**
+     * Gets the extra code.
+     *
+     * @return the extra code
+     */
+    public int getExtra() {
+        return extra;
+    }
+
     /**
      * Gets the error message.
      *
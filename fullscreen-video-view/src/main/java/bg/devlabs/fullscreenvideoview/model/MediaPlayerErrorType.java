@@ -29,5 +29,10 @@ public enum MediaPlayerErrorType {
     /**
      * Occurs when there is an error while playing the video.
      */
-    ASYNC_OPERATION
+    ASYNC_OPERATION,
+
+    /**
+     * Occurs when the video is not prepared before the prepare timeout elapses.
+     */
+    PREPARE_TIMEOUT
 }
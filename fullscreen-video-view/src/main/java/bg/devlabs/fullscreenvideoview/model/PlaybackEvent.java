@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.model;
+
+/**
+ * An immutable event of the player or its controller.
+ */
+public class PlaybackEvent {
+    private final PlaybackEventType type;
+    private final long timestampMs;
+    private final long positionMs;
+    private final long value;
+
+    /**
+     * Creates a new PlaybackEvent.
+     *
+     * @param type        the event type
+     * @param timestampMs the wall clock time of the event in milliseconds
+     * @param positionMs  the playback position at the time of the event in milliseconds
+     * @param value       the value which depends on the event type or 0
+     */
+    public PlaybackEvent(PlaybackEventType type, long timestampMs, long positionMs, long value) {
+        this.type = type;
+        this.timestampMs = timestampMs;
+        this.positionMs = positionMs;
+        this.value = value;
+    }
+
+    /**
+     * Gets the event type.
+     *
+     * @return the event type
+     */
+    public PlaybackEventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the wall clock time of the event.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    /**
+     * Gets the playback position at the time of the event.
+     *
+     * @return the position in milliseconds
+     */
+    public long getPositionMs() {
+        return positionMs;
+    }
+
+    /**
+     * Gets the value of the event, which depends on its type.
+     *
+     * @return the value or 0 if the type has no value
+     * @see PlaybackEventType
+     */
+    public long getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.model;
+
+/**
+ * Type of a playback event.
+ */
+public enum PlaybackEventType {
+
+    /**
+     * The play button has been clicked.
+     */
+    PLAY_CLICKED,
+
+    /**
+     * The pause button has been clicked.
+     */
+    PAUSE_CLICKED,
+
+    /**
+     * The rewind button has been clicked.
+     */
+    REWIND_CLICKED,
+
+    /**
+     * The fast forward button has been clicked.
+     */
+    FAST_FORWARD_CLICKED,
+
+    /**
+     * The fullscreen button has been clicked.
+     */
+    FULLSCREEN_CLICKED,
+
+    /**
+     * The SeekBar has been dragged. A burst of drag ticks is collapsed into one event, whose
+     * value is the last selected position in milliseconds.
+     */
+    SEEK_BAR_DRAGGED,
+
+    /**
+     * The video has been prepared.
+     */
+    PREPARED,
+
+    /**
+     * The video has completed.
+     */
+    COMPLETED,
+
+    /**
+     * The playback has stalled, because the buffer has run out.
+     */
+    BUFFERING_STARTED,
+
+    /**
+     * The playback continues after a stall. The value is the duration of the stall
+     * in milliseconds.
+     */
+    BUFFERING_ENDED,
+
+    /**
+     * An error has occurred. The value is the ordinal of the {@link MediaPlayerErrorType}.
+     */
+    ERROR
+}
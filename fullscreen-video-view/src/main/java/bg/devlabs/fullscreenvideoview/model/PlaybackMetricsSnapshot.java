@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.model;
+
+/**
+ * An immutable snapshot of the playback metrics of a video.
+ */
+public class PlaybackMetricsSnapshot {
+    private final LatencyHistogram startupTime;
+    private final LatencyHistogram firstFrameTime;
+    private final LatencyHistogram prepareTime;
+    private final LatencyHistogram rebufferingTime;
+    private final LatencyHistogram seekLatency;
+    private final int[] errorCounts;
+    private final int recoveryAttemptCount;
+    private final int recoveredErrorCount;
+    private final int failedErrorCount;
+
+    /**
+     * Creates a new PlaybackMetricsSnapshot. The error counts are copied.
+     *
+     * @param startupTime     the times from setting up the media player until it's prepared
+     * @param firstFrameTime  the times from setting up the media player until the first frame
+     *                        is rendered
+     * @param prepareTime     the times of the single preparations of the media player
+     * @param rebufferingTime the durations of the stalls because of buffering
+     * @param seekLatency     the times from issuing a seek until its completion
+     * @param errorCounts     the error counts indexed by {@link MediaPlayerErrorType#ordinal()}
+     * @param recoveryAttemptCount the number of attempts to recover from transient errors
+     * @param recoveredErrorCount  the number of errors the playback recovered from
+     * @param failedErrorCount     the number of errors reported to the OnErrorListener
+     */
+    public PlaybackMetricsSnapshot(LatencyHistogram startupTime,
+                                   LatencyHistogram firstFrameTime,
+                                   LatencyHistogram prepareTime,
+                                   LatencyHistogram rebufferingTime,
+                                   LatencyHistogram seekLatency,
+                                   int[] errorCounts,
+                                   int recoveryAttemptCount,
+                                   int recoveredErrorCount,
+                                   int failedErrorCount) {
+        this.startupTime = startupTime;
+        this.firstFrameTime = firstFrameTime;
+        this.prepareTime = prepareTime;
+        this.rebufferingTime = rebufferingTime;
+        this.seekLatency = seekLatency;
+        this.errorCounts = errorCounts.clone();
+        this.recoveryAttemptCount = recoveryAttemptCount;
+        this.recoveredErrorCount = recoveredErrorCount;
+        this.failedErrorCount = failedErrorCount;
+    }
+
+    /**
+     * Gets the times from setting up the media player until it's prepared.
+     *
+     * @return the startup time histogram
+     */
+    public LatencyHistogram getStartupTime() {
+        return startupTime;
+    }
+
+    /**
+     * Gets the times from setting up the media player until the first video frame is rendered.
+     *
+     * @return the first frame time histogram
+     */
+    public LatencyHistogram getFirstFrameTime() {
+        return firstFrameTime;
+    }
+
+    /**
+     * Gets the times from calling prepare on the media player until it's prepared, of the first
+     * preparation and of the preparations again after errors. Useful for tuning
+     * the prepare timeout.
+     *
+     * @return the prepare time histogram
+     */
+    public LatencyHistogram getPrepareTime() {
+        return prepareTime;
+    }
+
+    /**
+     * Gets the durations of the stalls because of buffering.
+     *
+     * @return the rebuffering time histogram
+     */
+    public LatencyHistogram getRebufferingTime() {
+        return rebufferingTime;
+    }
+
+    /**
+     * Gets the number of stalls because of buffering.
+     *
+     * @return the rebuffering count
+     */
+    public long getRebufferingCount() {
+        return rebufferingTime.getTotalCount();
+    }
+
+    /**
+     * Gets the total duration of the stalls because of buffering.
+     *
+     * @return the rebuffering duration in milliseconds
+     */
+    public long getRebufferingDurationMs() {
+        return rebufferingTime.getSumMs();
+    }
+
+    /**
+     * Gets the times from issuing a seek to the media player until its completion.
+     *
+     * @return the seek latency histogram
+     */
+    public LatencyHistogram getSeekLatency() {
+        return seekLatency;
+    }
+
+    /**
+     * Gets the number of errors of a type.
+     *
+     * @param type the error type
+     * @return the error count
+     */
+    public int getErrorCount(MediaPlayerErrorType type) {
+        return type.ordinal() < errorCounts.length ? errorCounts[type.ordinal()] : 0;
+    }
+
+    /**
+     * Gets the number of errors of all types.
+     *
+     * @return the error count
+     */
+    public int getTotalErrorCount() {
+        int count = 0;
+        for (int errorCount : errorCounts) {
+            count += errorCount;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of attempts to recover from transient errors by preparing the video again.
+     *
+     * @return the recovery attempt count
+     */
+    public int getRecoveryAttemptCount() {
+        return recoveryAttemptCount;
+    }
+
+    /**
+     * Gets the number of errors the playback recovered from.
+     *
+     * @return the recovered error count
+     */
+    public int getRecoveredErrorCount() {
+        return recoveredErrorCount;
+    }
+
+    /**
+     * Gets the number of errors which were not recovered from and were reported to
+     * the OnErrorListener. The playback failed if it's not 0.
+     *
+     * @return the failed error count
+     */
+    public int getFailedErrorCount() {
+        return failedErrorCount;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Contains the policy for recovering from transient media errors, such as network I/O errors,
+ * timeouts and a restarted media server. The video is prepared again with an exponential
+ * backoff and resumed at the last known position. When the attempts for a URL are exhausted,
+ * the fallback URLs are tried in order.
+ */
+@SuppressWarnings("unused")
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 1000L;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 16000L;
+    public static final float DEFAULT_JITTER = 0.5f;
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long initialBackoffMs = DEFAULT_INITIAL_BACKOFF_MS;
+    private long maxBackoffMs = DEFAULT_MAX_BACKOFF_MS;
+    private float jitter = DEFAULT_JITTER;
+    private boolean isFailoverOnPrepareTimeout;
+    private final ArrayList<String> fallbackUrls = new ArrayList<>();
+
+    /**
+     * Changes the maximum number of recovery attempts for each URL.
+     *
+     * @param maxAttempts the maximum number of attempts
+     * @return the retry policy instance
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(0, maxAttempts);
+        return this;
+    }
+
+    /**
+     * Changes the backoff before the first attempt, which is doubled for each next attempt up to
+     * the maximum backoff.
+     *
+     * @param initialBackoffMs the initial backoff in milliseconds
+     * @param maxBackoffMs     the maximum backoff in milliseconds
+     * @return the retry policy instance
+     */
+    public RetryPolicy setBackoff(long initialBackoffMs, long maxBackoffMs) {
+        this.initialBackoffMs = Math.max(0, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+        return this;
+    }
+
+    /**
+     * Changes the random part of each backoff, which spreads the attempts of many clients
+     * failing at the same time.
+     *
+     * @param jitter the random part of the backoff between 0 and 1
+     * @return the retry policy instance
+     */
+    public RetryPolicy setJitter(float jitter) {
+        this.jitter = Math.max(0f, Math.min(jitter, 1f));
+        return this;
+    }
+
+    /**
+     * Adds URLs of the same video, such as mirror CDNs, which are tried in order when
+     * the attempts for the previous URL are exhausted.
+     *
+     * @param fallbackUrls the fallback URLs
+     * @return the retry policy instance
+     */
+    public RetryPolicy addFallbackUrls(List<String> fallbackUrls) {
+        this.fallbackUrls.addAll(fallbackUrls);
+        return this;
+    }
+
+    /**
+     * Fails over to the next fallback URL right away when the preparation times out, instead of
+     * retrying the same URL first.
+     *
+     * @param isEnabled true to fail over on a prepare timeout
+     * @return the retry policy instance
+     */
+    public RetryPolicy setFailoverOnPrepareTimeout(boolean isEnabled) {
+        this.isFailoverOnPrepareTimeout = isEnabled;
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoffMs() {
+        return initialBackoffMs;
+    }
+
+    public long getMaxBackoffMs() {
+        return maxBackoffMs;
+    }
+
+    public float getJitter() {
+        return jitter;
+    }
+
+    public boolean isFailoverOnPrepareTimeout() {
+        return isFailoverOnPrepareTimeout;
+    }
+
+    public List<String> getFallbackUrls() {
+        return Collections.unmodifiableList(fallbackUrls);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview.model;
+
+/**
+ * Scales the video to the bounds of FullscreenVideoView.
+ */
+public enum VideoScaleMode {
+
+    /**
+     * Fits the whole video in the bounds and keeps its aspect ratio. The rest of the bounds is
+     * left black.
+     */
+    FIT,
+
+    /**
+     * Stretches the video to the bounds without keeping its aspect ratio.
+     */
+    FILL,
+
+    /**
+     * Covers the bounds with the video and keeps its aspect ratio. The parts of the video out of
+     * the bounds are cropped. Before Android 12 the video surface can't be clipped to the bounds,
+     * so it's cropped only in fullscreen and fitted in the bounds otherwise.
+     */
+    ZOOM
+}
@@ -31,9 +31,11 @@ public class PlaybackSpeedManager {
 
     private TextView playbackSpeedButton;
     private PlaybackSpeedPopupMenu popupMenu;
+    private CharSequence defaultPlaybackSpeedText;
 
     public PlaybackSpeedManager(Context context, TextView playbackSpeedButton) {
         this.playbackSpeedButton = playbackSpeedButton;
+        this.defaultPlaybackSpeedText = playbackSpeedButton.getText();
         // Initialize the PopupMenu
         popupMenu = new PlaybackSpeedPopupMenu(context, playbackSpeedButton);
     }
@@ -83,6 +85,13 @@ public class PlaybackSpeedManager {
         playbackSpeedButton.setText(text);
     }
 
+    /**
+     * Restores the text of the normal playback speed.
+     */
+    public void resetPlaybackSpeedText() {
+        playbackSpeedButton.setText(defaultPlaybackSpeedText);
+    }
+
     public void setPlaybackSpeedOptions(PlaybackSpeedOptions playbackSpeedOptions) {
         popupMenu.setPlaybackSpeedOptions(playbackSpeedOptions);
     }
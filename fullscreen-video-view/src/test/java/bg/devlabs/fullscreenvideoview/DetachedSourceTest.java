@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DetachedSourceTest {
+    private static final String OLD_VIDEO = "https://example.com/old.mp4";
+    private static final String NEW_VIDEO = "https://example.com/new.mp4";
+
+    @Test
+    public void viewIsSetUpWithItsVideoWhenAttachedAgain() {
+        DetachedSource source = new DetachedSource();
+        source.onTornDown(OLD_VIDEO);
+
+        assertTrue(source.isTornDown());
+        assertEquals(OLD_VIDEO, source.take());
+    }
+
+    @Test
+    public void videoBoundWhileDetachedReplacesPreviousOne() {
+        DetachedSource source = new DetachedSource();
+        source.onTornDown(OLD_VIDEO);
+
+        assertTrue(source.replace(NEW_VIDEO));
+
+        assertEquals(NEW_VIDEO, source.take());
+    }
+
+    @Test
+    public void bindingSameVideoAgainIsNotChange() {
+        DetachedSource source = new DetachedSource();
+        source.onTornDown(OLD_VIDEO);
+
+        assertFalse(source.replace(OLD_VIDEO));
+        assertEquals(OLD_VIDEO, source.take());
+    }
+
+    @Test
+    public void viewWithoutVideoGetsBoundVideo() {
+        DetachedSource source = new DetachedSource();
+        source.onTornDown(null);
+
+        assertTrue(source.replace(NEW_VIDEO));
+        assertEquals(NEW_VIDEO, source.take());
+    }
+
+    @Test
+    public void attachingClearsSource() {
+        DetachedSource source = new DetachedSource();
+        source.onTornDown(OLD_VIDEO);
+        source.take();
+
+        assertFalse(source.isTornDown());
+        assertNull(source.take());
+    }
+
+    @Test
+    public void viewWhichWasNeverDetachedHasNoSource() {
+        DetachedSource source = new DetachedSource();
+
+        assertFalse(source.isTornDown());
+        assertNull(source.take());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import bg.devlabs.fullscreenvideoview.listener.FullscreenVideoViewException;
+import bg.devlabs.fullscreenvideoview.model.MediaPlayerError;
+import bg.devlabs.fullscreenvideoview.model.MediaPlayerErrorType;
+import bg.devlabs.fullscreenvideoview.model.RetryPolicy;
+
+import static android.media.MediaPlayer.MEDIA_ERROR_IO;
+import static android.media.MediaPlayer.MEDIA_ERROR_MALFORMED;
+import static android.media.MediaPlayer.MEDIA_ERROR_UNKNOWN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ErrorHandlerTest {
+    private static final String VIDEO_URL = "https://example.com/video.mp4";
+    private static final MediaPlayerError IO_ERROR =
+            new MediaPlayerError(MediaPlayerErrorType.ASYNC_OPERATION, MEDIA_ERROR_UNKNOWN,
+                    MEDIA_ERROR_IO);
+    private static final MediaPlayerError PREPARE_TIMEOUT =
+            new MediaPlayerError(MediaPlayerErrorType.PREPARE_TIMEOUT, -110);
+
+    private final Context context = new ContextWrapper(null);
+    private final List<FullscreenVideoViewException> reportedErrors = new ArrayList<>();
+    private ErrorHandler errorHandler;
+
+    @Before
+    public void setUp() {
+        errorHandler = new ErrorHandler();
+        errorHandler.setOnErrorListener(reportedErrors::add);
+        errorHandler.setRecoveryListener(fallbackUrl -> {
+        });
+    }
+
+    @Test
+    public void backoffDoublesUpToMaximum() {
+        errorHandler.setRetryPolicy(new RetryPolicy()
+                .setBackoff(500, 3000)
+                .setJitter(0f));
+
+        assertEquals(500, errorHandler.getBackoff(1));
+        assertEquals(1000, errorHandler.getBackoff(2));
+        assertEquals(2000, errorHandler.getBackoff(3));
+        assertEquals(3000, errorHandler.getBackoff(4));
+        assertEquals(3000, errorHandler.getBackoff(60));
+    }
+
+    @Test
+    public void jitterTakesAwayRandomPart() {
+        errorHandler.setRetryPolicy(new RetryPolicy()
+                .setBackoff(1000, 16000)
+                .setJitter(0.5f));
+
+        for (int i = 0; i < 100; i++) {
+            long backoffMs = errorHandler.getBackoff(2);
+            assertTrue(backoffMs > 1000 && backoffMs <= 2000);
+        }
+    }
+
+    @Test
+    public void failoverFollowsRetriesInOrder() {
+        errorHandler.setRetryPolicy(new RetryPolicy()
+                .setMaxAttempts(2)
+                .addFallbackUrls(Arrays.asList("https://a.example.com", "https://b.example.com")));
+        errorHandler.onSourceChanged(VIDEO_URL);
+
+        List<String> recoveryUrls = new ArrayList<>();
+        while (errorHandler.handle(context, IO_ERROR)) {
+            recoveryUrls.add(errorHandler.getRecoveryUrl());
+        }
+
+        assertEquals(Arrays.asList(null, null,
+                "https://a.example.com", "https://a.example.com", "https://a.example.com",
+                "https://b.example.com", "https://b.example.com", "https://b.example.com"),
+                recoveryUrls);
+        assertEquals(1, reportedErrors.size());
+        assertEquals(MEDIA_ERROR_IO, reportedErrors.get(0).code);
+    }
+
+    @Test
+    public void prepareTimeoutFailsOverRightAway() {
+        errorHandler.setRetryPolicy(new RetryPolicy()
+                .setFailoverOnPrepareTimeout(true)
+                .addFallbackUrls(Arrays.asList("https://a.example.com")));
+        errorHandler.onSourceChanged(VIDEO_URL);
+
+        assertTrue(errorHandler.handle(context, PREPARE_TIMEOUT));
+        assertEquals("https://a.example.com", errorHandler.getRecoveryUrl());
+        // The last URL is retried
+        assertTrue(errorHandler.handle(context, PREPARE_TIMEOUT));
+        assertEquals("https://a.example.com", errorHandler.getRecoveryUrl());
+    }
+
+    @Test
+    public void fallbacksApplyOnlyToPrimaryVideo() {
+        errorHandler.setRetryPolicy(new RetryPolicy()
+                .setMaxAttempts(1)
+                .addFallbackUrls(Arrays.asList("https://a.example.com")));
+        errorHandler.onSourceChanged(VIDEO_URL);
+        errorHandler.onSourceChanged("https://example.com/other.mp4");
+
+        assertTrue(errorHandler.handle(context, IO_ERROR));
+        assertNull(errorHandler.getRecoveryUrl());
+        assertFalse(errorHandler.handle(context, IO_ERROR));
+    }
+
+    @Test
+    public void recoveryRestartsAttemptsAndKeepsUrl() {
+        errorHandler.setRetryPolicy(new RetryPolicy()
+                .setMaxAttempts(1)
+                .addFallbackUrls(Arrays.asList("https://a.example.com")));
+        errorHandler.onSourceChanged(VIDEO_URL);
+        errorHandler.handle(context, IO_ERROR);
+        errorHandler.handle(context, IO_ERROR);
+
+        errorHandler.onRecovered();
+
+        assertTrue(errorHandler.handle(context, IO_ERROR));
+        assertEquals("https://a.example.com", errorHandler.getRecoveryUrl());
+    }
+
+    @Test
+    public void permanentErrorIsReported() {
+        errorHandler.setRetryPolicy(new RetryPolicy());
+        errorHandler.onSourceChanged(VIDEO_URL);
+
+        MediaPlayerError error = new MediaPlayerError(MediaPlayerErrorType.ASYNC_OPERATION,
+                MEDIA_ERROR_UNKNOWN, MEDIA_ERROR_MALFORMED);
+
+        assertFalse(errorHandler.handle(context, error));
+        assertEquals(1, reportedErrors.size());
+        assertEquals(MEDIA_ERROR_MALFORMED, reportedErrors.get(0).code);
+    }
+
+    @Test
+    public void errorIsReportedWithoutRetryPolicy() {
+        errorHandler.onSourceChanged(VIDEO_URL);
+
+        assertFalse(errorHandler.handle(context, IO_ERROR));
+        assertEquals(1, reportedErrors.size());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import org.junit.Test;
+
+import bg.devlabs.fullscreenvideoview.model.LatencyHistogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void latenciesGoToBucketOfTheirUpperBound() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(0);
+        recorder.record(50);
+        recorder.record(51);
+        recorder.record(100);
+        recorder.record(30000);
+        recorder.record(30001);
+
+        LatencyHistogram histogram = recorder.snapshot();
+        assertEquals(10, histogram.getBucketCount());
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(2, histogram.getCount(1));
+        assertEquals(1, histogram.getCount(8));
+        assertEquals(1, histogram.getCount(9));
+        assertEquals(Long.MAX_VALUE, histogram.getUpperBoundMs(9));
+        assertEquals(6, histogram.getTotalCount());
+    }
+
+    @Test
+    public void negativeLatencyIsRecordedAsZero() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(-20);
+
+        LatencyHistogram histogram = recorder.snapshot();
+        assertEquals(1, histogram.getCount(0));
+        assertEquals(0, histogram.getSumMs());
+    }
+
+    @Test
+    public void sumMeanAndMaxAreTracked() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(100);
+        recorder.record(300);
+        recorder.record(800);
+
+        LatencyHistogram histogram = recorder.snapshot();
+        assertEquals(1200, histogram.getSumMs());
+        assertEquals(400, histogram.getMeanMs());
+        assertEquals(800, histogram.getMaxMs());
+    }
+
+    @Test
+    public void percentilesAreEstimatedFromBuckets() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 0; i < 90; i++) {
+            recorder.record(40);
+        }
+        for (int i = 0; i < 9; i++) {
+            recorder.record(700);
+        }
+        recorder.record(45000);
+
+        LatencyHistogram histogram = recorder.snapshot();
+        assertEquals(50, histogram.getPercentileMs(50));
+        assertEquals(50, histogram.getPercentileMs(90));
+        assertEquals(1000, histogram.getPercentileMs(99));
+        // The last bucket has no upper bound
+        assertEquals(45000, histogram.getPercentileMs(100));
+    }
+
+    @Test
+    public void percentileIsCappedByMaximum() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(120);
+
+        assertEquals(120, recorder.snapshot().getPercentileMs(50));
+    }
+
+    @Test
+    public void snapshotIsNotChangedByLaterRecords() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(10);
+        LatencyHistogram histogram = recorder.snapshot();
+        recorder.record(10);
+
+        assertEquals(1, histogram.getTotalCount());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        assertTrue(recorder.isEmpty());
+        recorder.record(10);
+        assertFalse(recorder.isEmpty());
+
+        recorder.reset();
+
+        assertTrue(recorder.isEmpty());
+        LatencyHistogram histogram = recorder.snapshot();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxMs());
+        assertEquals(0, histogram.getPercentileMs(50));
+    }
+}
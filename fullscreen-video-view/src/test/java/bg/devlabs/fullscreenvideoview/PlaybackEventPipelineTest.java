@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import bg.devlabs.fullscreenvideoview.model.PlaybackEvent;
+import bg.devlabs.fullscreenvideoview.model.PlaybackEventType;
+
+import static org.junit.Assert.assertEquals;
+
+public class PlaybackEventPipelineTest {
+    private static final int CAPACITY = 256;
+
+    private PlaybackEventPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        pipeline = new PlaybackEventPipeline();
+    }
+
+    @Test
+    public void fullRingBufferDropsOldestEvents() {
+        for (int i = 0; i < CAPACITY + 3; i++) {
+            pipeline.add(PlaybackEventType.PLAY_CLICKED, i, i, 0, 1000);
+        }
+
+        List<PlaybackEvent> events = pipeline.takeEvents(1000, false);
+        assertEquals(CAPACITY, events.size());
+        assertEquals(3, events.get(0).getPositionMs());
+        assertEquals(CAPACITY + 2, events.get(CAPACITY - 1).getPositionMs());
+        assertEquals(3, pipeline.getDroppedCount());
+        assertEquals(0, pipeline.takeEvents(1000, false).size());
+    }
+
+    @Test
+    public void ringBufferWrapsAroundAfterEventsAreTaken() {
+        for (int i = 0; i < CAPACITY - 1; i++) {
+            pipeline.add(PlaybackEventType.PLAY_CLICKED, i, i, 0, 1000);
+        }
+        pipeline.takeEvents(1000, false);
+
+        for (int i = 0; i < 3; i++) {
+            pipeline.add(PlaybackEventType.PAUSE_CLICKED, i, i, 0, 1000);
+        }
+
+        List<PlaybackEvent> events = pipeline.takeEvents(1000, false);
+        assertEquals(3, events.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(PlaybackEventType.PAUSE_CLICKED, events.get(i).getType());
+            assertEquals(i, events.get(i).getPositionMs());
+        }
+        assertEquals(0, pipeline.getDroppedCount());
+    }
+
+    @Test
+    public void dragTicksWithinWindowAreCollapsed() {
+        assertEquals(1, pipeline.add(PlaybackEventType.SEEK_BAR_DRAGGED, 0, 0, 1000, 1000));
+        assertEquals(0, pipeline.add(PlaybackEventType.SEEK_BAR_DRAGGED, 0, 0, 2000, 1400));
+        // The window starts again at each tick
+        assertEquals(0, pipeline.add(PlaybackEventType.SEEK_BAR_DRAGGED, 0, 0, 3000, 1800));
+        assertEquals(2, pipeline.add(PlaybackEventType.SEEK_BAR_DRAGGED, 0, 0, 4000, 2400));
+
+        List<PlaybackEvent> events = pipeline.takeEvents(2400, false);
+        assertEquals(2, events.size());
+        assertEquals(3000, events.get(0).getValue());
+        assertEquals(4000, events.get(1).getValue());
+    }
+
+    @Test
+    public void otherEventEndsDrag() {
+        pipeline.add(PlaybackEventType.SEEK_BAR_DRAGGED, 0, 0, 1000, 1000);
+        pipeline.add(PlaybackEventType.PAUSE_CLICKED, 0, 0, 0, 1100);
+        pipeline.add(PlaybackEventType.SEEK_BAR_DRAGGED, 0, 0, 2000, 1200);
+
+        List<PlaybackEvent> events = pipeline.takeEvents(1200, false);
+        assertEquals(3, events.size());
+        assertEquals(1000, events.get(0).getValue());
+        assertEquals(2000, events.get(2).getValue());
+    }
+
+    @Test
+    public void openDragIsKeptWhenPersisting() {
+        pipeline.add(PlaybackEventType.PLAY_CLICKED, 0, 0, 0, 1000);
+        pipeline.add(PlaybackEventType.SEEK_BAR_DRAGGED, 0, 0, 1000, 1100);
+
+        List<PlaybackEvent> events = pipeline.takeEvents(1200, true);
+        assertEquals(1, events.size());
+        assertEquals(PlaybackEventType.PLAY_CLICKED, events.get(0).getType());
+
+        // The kept drag still collapses the following ticks
+        assertEquals(0, pipeline.add(PlaybackEventType.SEEK_BAR_DRAGGED, 0, 0, 2000, 1300));
+        events = pipeline.takeEvents(2000, true);
+        assertEquals(1, events.size());
+        assertEquals(2000, events.get(0).getValue());
+    }
+}
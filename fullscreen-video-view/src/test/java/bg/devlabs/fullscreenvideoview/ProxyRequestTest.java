@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProxyRequestTest {
+    private static final String VIDEO_URL = "https://example.com/video.mp4?quality=720";
+    private static final String ENCODED_URL =
+            "https%3A%2F%2Fexample.com%2Fvideo.mp4%3Fquality%3D720";
+
+    @Test
+    public void requestWithoutRangeCoversWholeVideo() throws IOException {
+        ProxyRequest request = read("GET /" + ENCODED_URL + " HTTP/1.1\r\n\r\n");
+
+        assertEquals(VIDEO_URL, request.url);
+        assertFalse(request.isHead);
+        assertFalse(request.hasRange());
+        assertEquals(0, request.resolveStart(1000));
+        assertEquals(999, request.resolveEnd(1000));
+    }
+
+    @Test
+    public void closedRangeIsClampedToLength() throws IOException {
+        ProxyRequest request = read(get("Range: bytes=100-1999"));
+
+        assertTrue(request.hasRange());
+        assertEquals(100, request.resolveStart(1000));
+        assertEquals(999, request.resolveEnd(1000));
+        assertEquals(1499, request.resolveEnd(1500));
+    }
+
+    @Test
+    public void openEndedRangeGoesToLastByte() throws IOException {
+        ProxyRequest request = read(get("Range: bytes=500-"));
+
+        assertEquals(500, request.rangeStart);
+        assertEquals(-1, request.rangeEnd);
+        assertEquals(500, request.resolveStart(1000));
+        assertEquals(999, request.resolveEnd(1000));
+    }
+
+    @Test
+    public void suffixRangeTakesLastBytes() throws IOException {
+        ProxyRequest request = read(get("Range: bytes=-300"));
+
+        assertEquals(-1, request.rangeStart);
+        assertEquals(700, request.resolveStart(1000));
+        assertEquals(999, request.resolveEnd(1000));
+        // A suffix longer than the video covers all of it
+        assertEquals(0, request.resolveStart(200));
+    }
+
+    @Test
+    public void headerNameIsCaseInsensitive() throws IOException {
+        ProxyRequest request = read(get("Host: 127.0.0.1", "RANGE:   bytes=10-20  "));
+
+        assertEquals(10, request.rangeStart);
+        assertEquals(20, request.rangeEnd);
+    }
+
+    @Test
+    public void unsupportedRangeIsIgnored() throws IOException {
+        ProxyRequest request = read(get("Range: bytes=0-99,200-299"));
+
+        assertFalse(request.hasRange());
+    }
+
+    @Test
+    public void headRequestIsDetected() throws IOException {
+        ProxyRequest request = read("HEAD /" + ENCODED_URL + " HTTP/1.1\r\n\r\n");
+
+        assertTrue(request.isHead);
+    }
+
+    @Test
+    public void rangeOverflowingLongIsMalformed() throws IOException {
+        assertNull(read(get("Range: bytes=99999999999999999999-")));
+    }
+
+    @Test
+    public void malformedRequestLinesAreRejected() throws IOException {
+        assertNull(read(""));
+        assertNull(read("GET\r\n\r\n"));
+        assertNull(read("GET / HTTP/1.1\r\n\r\n"));
+        assertNull(read("GET /%zz HTTP/1.1\r\n\r\n"));
+    }
+
+    private static String get(String... headers) {
+        StringBuilder request = new StringBuilder("GET /" + ENCODED_URL + " HTTP/1.1\r\n");
+        for (String header : headers) {
+            request.append(header).append("\r\n");
+        }
+        return request.append("\r\n").toString();
+    }
+
+    private static ProxyRequest read(String request) throws IOException {
+        return ProxyRequest.read(
+                new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResumePositionStoreTest {
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("resume-positions", ".bin");
+        // The store creates the file itself
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void hashIsFnv1aOfUtf16Bytes() {
+        assertEquals(0xcbf29ce484222325L, ResumePositionStore.hash(""));
+        assertEquals(ResumePositionStore.hash("video.mp4"), ResumePositionStore.hash("video.mp4"));
+        // The high byte of each character is hashed too
+        assertNotEquals(ResumePositionStore.hash("\u0001"), ResumePositionStore.hash("\u0100"));
+        assertNotEquals(ResumePositionStore.hash("ab"), ResumePositionStore.hash("ba"));
+    }
+
+    @Test
+    public void positionsAreSavedUpdatedAndRemoved() {
+        ResumePositionStore store = new ResumePositionStore(file);
+        assertEquals(ResumePositionStore.NO_POSITION, store.getPosition("a.mp4"));
+
+        store.setPosition("a.mp4", 1000);
+        store.setPosition("b.mp4", 2000);
+        store.setPosition("a.mp4", 3000);
+
+        assertEquals(3000, store.getPosition("a.mp4"));
+        assertEquals(2000, store.getPosition("b.mp4"));
+
+        store.remove("a.mp4");
+
+        assertEquals(ResumePositionStore.NO_POSITION, store.getPosition("a.mp4"));
+        assertEquals(2000, store.getPosition("b.mp4"));
+    }
+
+    @Test
+    public void positionsSurviveReopening() {
+        new ResumePositionStore(file).setPosition("a.mp4", 1000);
+
+        assertEquals(1000, new ResumePositionStore(file).getPosition("a.mp4"));
+        assertEquals(HEADER_SIZE + INITIAL_CAPACITY * RECORD_SIZE, file.length());
+    }
+
+    @Test
+    public void collidingSourcesAreProbedAndGrowTable() {
+        // More sources in the same slot than the probe sequence holds
+        List<String> sources = findCollidingSources(12);
+        ResumePositionStore store = new ResumePositionStore(file);
+        for (int i = 0; i < sources.size(); i++) {
+            store.setPosition(sources.get(i), i + 1);
+        }
+
+        for (int i = 0; i < sources.size(); i++) {
+            assertEquals(i + 1, store.getPosition(sources.get(i)));
+        }
+        assertTrue(file.length() > HEADER_SIZE + INITIAL_CAPACITY * RECORD_SIZE);
+        // The grown table is found when the file is opened again
+        assertEquals(1, new ResumePositionStore(file).getPosition(sources.get(0)));
+    }
+
+    @Test
+    public void tableGrowsAboveHalfLoad() {
+        // Sources in distinct slots, so that no probe sequence overflows
+        List<String> sources = findSourcesInDistinctSlots(INITIAL_CAPACITY / 2 + 1);
+        ResumePositionStore store = new ResumePositionStore(file);
+        for (int i = 0; i < INITIAL_CAPACITY / 2; i++) {
+            store.setPosition(sources.get(i), i + 1);
+        }
+        assertEquals(HEADER_SIZE + INITIAL_CAPACITY * RECORD_SIZE, file.length());
+
+        // The number of taken slots is read again when the file is opened
+        store = new ResumePositionStore(file);
+        store.setPosition(sources.get(INITIAL_CAPACITY / 2), INITIAL_CAPACITY / 2 + 1);
+
+        assertEquals(HEADER_SIZE + 2 * INITIAL_CAPACITY * RECORD_SIZE, file.length());
+        for (int i = 0; i < sources.size(); i++) {
+            assertEquals(i + 1, store.getPosition(sources.get(i)));
+        }
+    }
+
+    @Test
+    public void clearRemovesAllPositions() {
+        ResumePositionStore store = new ResumePositionStore(file);
+        store.setPosition("a.mp4", 1000);
+        store.setPosition("b.mp4", 2000);
+
+        store.clear();
+
+        assertEquals(ResumePositionStore.NO_POSITION, store.getPosition("a.mp4"));
+        assertEquals(ResumePositionStore.NO_POSITION, store.getPosition("b.mp4"));
+        assertEquals(HEADER_SIZE + INITIAL_CAPACITY * RECORD_SIZE, file.length());
+    }
+
+    @Test
+    public void probeSequenceWrapsAroundTable() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + INITIAL_CAPACITY * RECORD_SIZE);
+        long lastSlotKey = INITIAL_CAPACITY - 1;
+        putRecord(buffer, INITIAL_CAPACITY - 1, lastSlotKey + INITIAL_CAPACITY, 0);
+
+        assertEquals(HEADER_SIZE, ResumePositionStore.findEmptySlot(
+                buffer, INITIAL_CAPACITY, lastSlotKey));
+    }
+
+    @Test
+    public void fullProbeSequenceReplacesLeastRecentlyUpdated() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + INITIAL_CAPACITY * RECORD_SIZE);
+        long key = 5;
+        for (int probe = 0; probe < 8; probe++) {
+            // Other keys of the same slot, the fourth one updated first
+            putRecord(buffer, 5 + probe, key + (probe + 1) * INITIAL_CAPACITY,
+                    probe == 3 ? 100 : 1000 + probe);
+        }
+
+        assertEquals(-1, ResumePositionStore.find(buffer, INITIAL_CAPACITY, key));
+        assertEquals(-1, ResumePositionStore.findEmptySlot(buffer, INITIAL_CAPACITY, key));
+        assertEquals(HEADER_SIZE + 8 * RECORD_SIZE,
+                ResumePositionStore.findOldestSlot(buffer, INITIAL_CAPACITY, key));
+    }
+
+    private static void putRecord(ByteBuffer buffer, int slot, long key, int updateTime) {
+        int offset = HEADER_SIZE + slot * RECORD_SIZE;
+        buffer.putLong(offset, key);
+        buffer.putInt(offset + 8, 0);
+        buffer.putInt(offset + 12, updateTime);
+    }
+
+    private static List<String> findCollidingSources(int count) {
+        List<String> sources = new ArrayList<>();
+        long slot = -1;
+        for (int i = 0; sources.size() < count; i++) {
+            String source = "https://example.com/video-" + i + ".mp4";
+            long sourceSlot = ResumePositionStore.hash(source) & (INITIAL_CAPACITY - 1);
+            if (slot == -1) {
+                slot = sourceSlot;
+            }
+            if (sourceSlot == slot) {
+                sources.add(source);
+            }
+        }
+        return sources;
+    }
+
+    private static List<String> findSourcesInDistinctSlots(int count) {
+        List<String> sources = new ArrayList<>();
+        boolean[] isSlotTaken = new boolean[INITIAL_CAPACITY];
+        for (int i = 0; sources.size() < count; i++) {
+            String source = "https://example.com/video-" + i + ".mp4";
+            int slot = (int) (ResumePositionStore.hash(source) & (INITIAL_CAPACITY - 1));
+            if (!isSlotTaken[slot]) {
+                isSlotTaken[slot] = true;
+                sources.add(source);
+            }
+        }
+        return sources;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import android.media.MediaPlayer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class SeekSchedulerTest {
+    private RecordingMediaPlayer mediaPlayer;
+    private PlayerStateMirror stateMirror;
+    private SeekScheduler seekScheduler;
+
+    @Before
+    public void setUp() {
+        mediaPlayer = new RecordingMediaPlayer();
+        stateMirror = new PlayerStateMirror();
+        stateMirror.onPrepared(60000);
+        seekScheduler = new SeekScheduler(mediaPlayer, stateMirror);
+    }
+
+    @Test
+    public void seekIsIssuedRightAwayWhenNoneIsInFlight() {
+        seekScheduler.seekTo(1000, true);
+
+        assertEquals(Arrays.asList(1000), mediaPlayer.seekPositions);
+        assertEquals(1000, seekScheduler.getInFlightPositionMs());
+        assertEquals(1000, stateMirror.getCurrentPosition());
+    }
+
+    @Test
+    public void seeksInFlightAreCoalescedToLatest() {
+        seekScheduler.seekTo(1000, false);
+        seekScheduler.seekTo(2000, false);
+        seekScheduler.seekTo(3000, false);
+        seekScheduler.seekTo(4000, true);
+
+        assertEquals(Arrays.asList(1000), mediaPlayer.seekPositions);
+        assertEquals(4000, seekScheduler.getTargetPositionMs());
+
+        seekScheduler.onSeekComplete();
+
+        assertEquals(Arrays.asList(1000, 4000), mediaPlayer.seekPositions);
+        assertEquals(4000, seekScheduler.getInFlightPositionMs());
+    }
+
+    @Test
+    public void targetIsClearedOnceLastSeekCompletes() {
+        seekScheduler.seekTo(1000, true);
+        seekScheduler.seekTo(2000, true);
+        seekScheduler.onSeekComplete();
+        seekScheduler.onSeekComplete();
+
+        assertEquals(Arrays.asList(1000, 2000), mediaPlayer.seekPositions);
+        assertEquals(-1, seekScheduler.getTargetPositionMs());
+    }
+
+    @Test
+    public void completionOfForeignSeekIsIgnored() {
+        assertEquals(-1, seekScheduler.onSeekComplete());
+        assertEquals(0, mediaPlayer.seekPositions.size());
+    }
+
+    @Test
+    public void relativeSeeksAddUpBeforeCompleting() {
+        stateMirror.onSeekRequested(10000);
+
+        seekScheduler.seekBy(5000);
+        seekScheduler.seekBy(5000);
+        seekScheduler.seekBy(-2000);
+
+        assertEquals(Arrays.asList(15000), mediaPlayer.seekPositions);
+        assertEquals(18000, seekScheduler.getTargetPositionMs());
+
+        seekScheduler.onSeekComplete();
+
+        assertEquals(Arrays.asList(15000, 18000), mediaPlayer.seekPositions);
+    }
+
+    @Test
+    public void relativeSeeksAreClampedToVideo() {
+        seekScheduler.seekBy(-5000);
+        seekScheduler.onSeekComplete();
+        seekScheduler.seekBy(90000);
+
+        assertEquals(Arrays.asList(0, 60000), mediaPlayer.seekPositions);
+    }
+
+    @Test
+    public void resetDropsPendingSeek() {
+        seekScheduler.seekTo(1000, true);
+        seekScheduler.seekTo(2000, true);
+        seekScheduler.reset();
+
+        assertEquals(-1, seekScheduler.onSeekComplete());
+        assertEquals(-1, seekScheduler.getTargetPositionMs());
+        assertEquals(Arrays.asList(1000), mediaPlayer.seekPositions);
+    }
+
+    /**
+     * Records the seeks instead of executing them. The stubbed android.jar reports API level 0,
+     * so the scheduler uses seekTo(int).
+     */
+    private static class RecordingMediaPlayer extends MediaPlayer {
+        final List<Integer> seekPositions = new ArrayList<>();
+
+        @Override
+        public void seekTo(int msec) {
+            seekPositions.add(msec);
+        }
+
+        @Override
+        public void seekTo(long msec, int mode) {
+            seekPositions.add((int) msec);
+        }
+    }
+}
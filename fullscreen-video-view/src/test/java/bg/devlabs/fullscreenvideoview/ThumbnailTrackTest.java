@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Dev Labs
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bg.devlabs.fullscreenvideoview;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ThumbnailTrackTest {
+
+    @Test
+    public void cuesAreParsedWithRegions() throws IOException {
+        ThumbnailTrack track = parse("WEBVTT\n"
+                + "\n"
+                + "00:00:00.000 --> 00:00:05.000\n"
+                + "sprite-1.jpg#xywh=0,0,160,90\n"
+                + "\n"
+                + "00:00:05.000 --> 00:00:10.000\n"
+                + "sprite-1.jpg#xywh=160,0,160,90\n");
+
+        assertEquals(2, track.size());
+        ThumbnailTrack.Cue cue = track.getCue(1);
+        assertEquals(5000, cue.startMs);
+        assertEquals(10000, cue.endMs);
+        assertEquals("sprite-1.jpg", cue.image);
+        assertArrayEquals(new int[]{160, 0, 160, 90}, cue.region);
+    }
+
+    @Test
+    public void timestampsWithoutHoursAndWithSettingsAreParsed() throws IOException {
+        ThumbnailTrack track = parse("\uFEFFWEBVTT - thumbnails\n"
+                + "\n"
+                + "first\n"
+                + "01:02.500 --> 1:01:02,750 align:start\n"
+                + "https://example.com/frame.jpg\n");
+
+        ThumbnailTrack.Cue cue = track.getCue(0);
+        assertEquals(62500, cue.startMs);
+        assertEquals(3662750, cue.endMs);
+        assertEquals("https://example.com/frame.jpg", cue.image);
+        assertNull(cue.region);
+    }
+
+    @Test
+    public void malformedCuesAreSkipped() throws IOException {
+        ThumbnailTrack track = parse("WEBVTT\n"
+                + "\n"
+                + "NOTE a comment --> not a cue\n"
+                + "\n"
+                + "00:00:00.000 --> 00:00:05.000\n"
+                + "\n"
+                + "00:00:05.000 --> 00:00:10.000\n"
+                + "sprite.jpg#xywh=1,2,3\n");
+
+        assertEquals(1, track.size());
+        assertEquals(5000, track.getCue(0).startMs);
+        assertEquals("sprite.jpg", track.getCue(0).image);
+        assertNull(track.getCue(0).region);
+    }
+
+    @Test
+    public void cuesAreSortedAndFoundByPosition() throws IOException {
+        ThumbnailTrack track = parse("WEBVTT\n"
+                + "\n"
+                + "00:00:10.000 --> 00:00:15.000\n"
+                + "c.jpg\n"
+                + "\n"
+                + "00:00:00.000 --> 00:00:05.000\n"
+                + "a.jpg\n"
+                + "\n"
+                + "00:00:05.000 --> 00:00:10.000\n"
+                + "b.jpg\n");
+
+        assertEquals("a.jpg", track.getCue(0).image);
+        assertEquals(0, track.indexOf(0));
+        assertEquals(0, track.indexOf(4999));
+        assertEquals(1, track.indexOf(5000));
+        assertEquals(2, track.indexOf(14999));
+    }
+
+    @Test
+    public void positionsOutsideCuesFindNoCue() throws IOException {
+        ThumbnailTrack track = parse("WEBVTT\n"
+                + "\n"
+                + "00:00:02.000 --> 00:00:04.000\n"
+                + "a.jpg\n"
+                + "\n"
+                + "00:00:06.000 --> 00:00:08.000\n"
+                + "b.jpg\n");
+
+        // Before the first cue, in the gap and past the last cue
+        assertEquals(-1, track.indexOf(1000));
+        assertEquals(-1, track.indexOf(4000));
+        assertEquals(-1, track.indexOf(5999));
+        assertEquals(-1, track.indexOf(8000));
+        assertEquals(1, track.indexOf(6000));
+    }
+
+    @Test
+    public void nearestCueIsFoundForPositionsOutsideCues() throws IOException {
+        ThumbnailTrack track = parse("WEBVTT\n"
+                + "\n"
+                + "00:00:02.000 --> 00:00:04.000\n"
+                + "a.jpg\n"
+                + "\n"
+                + "00:00:06.000 --> 00:00:08.000\n"
+                + "b.jpg\n");
+
+        assertEquals(0, track.indexOfNearest(1000));
+        assertEquals(0, track.indexOfNearest(5000));
+        assertEquals(1, track.indexOfNearest(60000));
+    }
+
+    @Test
+    public void emptyTrackFindsNothing() throws IOException {
+        ThumbnailTrack track = parse("WEBVTT\n");
+
+        assertEquals(-1, track.indexOf(1000));
+        assertEquals(-1, track.indexOfNearest(1000));
+    }
+
+    @Test(expected = IOException.class)
+    public void fileWithoutHeaderIsRejected() throws IOException {
+        parse("00:00:00.000 --> 00:00:05.000\na.jpg\n");
+    }
+
+    private static ThumbnailTrack parse(String track) throws IOException {
+        return ThumbnailTrack.parse(
+                new ByteArrayInputStream(track.getBytes(StandardCharsets.UTF_8)));
+    }
+}